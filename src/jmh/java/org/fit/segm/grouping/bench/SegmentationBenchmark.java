@@ -0,0 +1,218 @@
+/**
+ * SegmentationBenchmark.java
+ *
+ * Created on 17. 10. 2026, 17:37:17 by agent
+ */
+package org.fit.segm.grouping.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fit.layout.api.AreaTreeOperator;
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTree;
+import org.fit.layout.model.Page;
+import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.Config;
+import org.fit.segm.grouping.SegmentationAreaTree;
+import org.fit.segm.grouping.gen.PageGenerator;
+import org.fit.segm.grouping.op.CollapseAreasOperator;
+import org.fit.segm.grouping.op.FindLineOperator;
+import org.fit.segm.grouping.op.FlattenTreeOperator;
+import org.fit.segm.grouping.op.MultiLineOperator;
+import org.fit.segm.grouping.op.OperatorPipeline;
+import org.fit.segm.grouping.op.SeparatorSet;
+import org.fit.segm.grouping.op.SortByPositionOperator;
+import org.fit.segm.grouping.op.SuperAreaOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the individual segmentation stages. Each stage is measured on a fresh copy
+ * of its input tree that is prepared by running the preceding stages outside of the measurement.
+ * The results are reported in operations per second; use the {@code -prof gc} JMH option
+ * (the default in the {@code jmh} build profile) for obtaining the allocation rate.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SegmentationBenchmark
+{
+
+    /**
+     * The generated source page shared by all the benchmark iterations.
+     */
+    @State(Scope.Benchmark)
+    public static class PageState
+    {
+        /** The number of boxes on the page */
+        @Param({"1000", "10000", "100000"})
+        public int boxes;
+
+        /** The number of page columns */
+        @Param({"1", "3"})
+        public int columns;
+
+        /** The nesting depth of the page sections */
+        @Param({"2"})
+        public int depth;
+
+        /** The probability of a table instead of a paragraph */
+        @Param({"0.1"})
+        public float tableRatio;
+
+        public Page page;
+
+        @Setup(Level.Trial)
+        public void createPage()
+        {
+            PageGenerator gen = new PageGenerator(boxes, columns);
+            gen.setDepth(depth);
+            gen.setTableRatio(tableRatio);
+            page = gen.generate();
+        }
+    }
+
+    /**
+     * A tree of the basic areas created before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class BasicAreasState
+    {
+        public AreaTree atree;
+
+        @Setup(Level.Invocation)
+        public void createTree(PageState ps)
+        {
+            atree = createBasicTree(ps.page);
+        }
+    }
+
+    /**
+     * A tree with the detected lines created before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class LinesState
+    {
+        public AreaTree atree;
+
+        @Setup(Level.Invocation)
+        public void createTree(PageState ps)
+        {
+            atree = createBasicTree(ps.page);
+            new FindLineOperator().apply(atree);
+        }
+    }
+
+    //==============================================================================
+
+    @Benchmark
+    public Area basicAreas(PageState ps)
+    {
+        return createBasicTree(ps.page).getRoot();
+    }
+
+    @Benchmark
+    public void separators(BasicAreasState s, Blackhole bh)
+    {
+        recursiveCreateSeparators((AreaImpl) s.atree.getRoot(), bh);
+    }
+
+    @Benchmark
+    public AreaTree findLines(BasicAreasState s)
+    {
+        new FindLineOperator().apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree multiLines(LinesState s)
+    {
+        new MultiLineOperator().apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree superAreas(LinesState s)
+    {
+        new SuperAreaOperator().apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree sortByPosition(BasicAreasState s)
+    {
+        new SortByPositionOperator().apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree flatten(BasicAreasState s)
+    {
+        new FlattenTreeOperator().apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree operatorChain(BasicAreasState s)
+    {
+        for (AreaTreeOperator op : createOperatorChain())
+            op.apply(s.atree);
+        return s.atree;
+    }
+
+    @Benchmark
+    public AreaTree fusedOperatorChain(BasicAreasState s)
+    {
+        new OperatorPipeline(createOperatorChain()).apply(s.atree);
+        return s.atree;
+    }
+
+    //==============================================================================
+
+    private static List<AreaTreeOperator> createOperatorChain()
+    {
+        List<AreaTreeOperator> ret = new ArrayList<AreaTreeOperator>(5);
+        ret.add(new FindLineOperator());
+        ret.add(new MultiLineOperator());
+        ret.add(new SuperAreaOperator());
+        ret.add(new CollapseAreasOperator());
+        ret.add(new SortByPositionOperator());
+        return ret;
+    }
+
+    private static AreaTree createBasicTree(Page page)
+    {
+        SegmentationAreaTree atree = new SegmentationAreaTree(page, false);
+        atree.findBasicAreas();
+        return atree;
+    }
+
+    private static void recursiveCreateSeparators(AreaImpl root, Blackhole bh)
+    {
+        if (root.getChildCount() > 0)
+        {
+            SeparatorSet seps = Config.createSeparators(root);
+            bh.consume(seps);
+            for (int i = 0; i < root.getChildCount(); i++)
+                recursiveCreateSeparators((AreaImpl) root.getChildAt(i), bh);
+        }
+    }
+
+}
@@ -7,14 +7,18 @@ package org.fit.segm.grouping;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import org.fit.layout.impl.DefaultArea;
 import org.fit.layout.model.Area;
 import org.fit.layout.model.Box;
-import org.fit.layout.model.Box.Type;
 import org.fit.layout.model.ContentObject;
 import org.fit.layout.model.Rectangular;
 import org.fit.layout.model.Tag;
@@ -35,6 +39,34 @@ public class AreaImpl extends DefaultArea
     /** Set of separators */
     private SeparatorSet seps;
     
+    /** Index of the grid cells occupied by the child areas (created on demand) */
+    private OccupancyGrid grid;
+    
+    /** The cached text of the area subtree or {@code null} when not computed yet */
+    private String text;
+    
+    /** The cached length of the subtree text or -1 when not computed yet */
+    private int textLength = -1;
+    
+    /** Index of the boxes in the subtree (created on demand) */
+    private ContentIndex contentIndex;
+    
+    /** The cached style of the area or {@code null} when not computed yet */
+    private AreaStyle style;
+    
+    /** The names of the joined areas that have not been appended to the area name yet */
+    private List<String> joinedNames;
+    
+    /** The computed derived flags of the area (FLAG_* bits) */
+    private byte flags;
+    
+    private static final byte FLAG_TEXT_KNOWN = 0x01;
+    private static final byte FLAG_TEXT = 0x02;
+    private static final byte FLAG_HSEP_KNOWN = 0x04;
+    private static final byte FLAG_HSEP = 0x08;
+    private static final byte FLAG_VSEP_KNOWN = 0x10;
+    private static final byte FLAG_VSEP = 0x20;
+    
     /**
      * Area level. 0 corresponds to the areas formed by boxes, greater numbers represent
      * greater level of grouping
@@ -47,23 +79,10 @@ public class AreaImpl extends DefaultArea
     private boolean separated;
     
     /**
-     * Sum for computing the average font size
-     */
-    private float fontSizeSum;
-    
-    /**
-     * Counter for computing the average font size
+     * The statistics for computing the average font properties (created on demand
+     * because the boxes may be added already by the superclass constructor)
      */
-    private int fontSizeCnt;
-    
-    private float fontWeightSum;
-    private int fontWeightCnt;
-    private float fontStyleSum;
-    private int fontStyleCnt;
-    private float underlineSum;
-    private int underlineCnt;
-    private float lineThroughSum;
-    private int lineThroughCnt;
+    private StyleStatistics styleStats;
     
 	//================================================================================
 	
@@ -108,24 +127,41 @@ public class AreaImpl extends DefaultArea
     public AreaImpl(AreaImpl src)
     {
         super(src);
+        super.setName(src.getPlainName());
+        joinedNames = (src.joinedNames == null) ? null : new ArrayList<String>(src.joinedNames);
         level = src.level;
-        fontSizeSum = src.fontSizeSum;
-        fontSizeCnt = src.fontStyleCnt;
-        fontStyleSum = src.fontStyleSum;
-        fontStyleCnt = src.fontStyleCnt;
-        fontWeightSum = src.fontWeightSum;
-        fontWeightCnt = src.fontWeightCnt;
-        underlineCnt = src.underlineCnt;
-        underlineSum = src.underlineSum;
-        lineThroughCnt = src.lineThroughCnt;
-        lineThroughSum = src.lineThroughSum;
+        separated = src.separated;
+        styleStats = (src.styleStats == null) ? null : new StyleStatistics(src.styleStats);
+        style = src.style; //never modified, the same boxes and averages
+        flags = src.flags;
     }
     
     @Override
     public void appendChild(Area child)
     {
+        invalidateParentContent(child);
         super.appendChild(child);
         updateAverages(child);
+        invalidateGrid();
+        invalidateContent();
+        invalidateStyle();
+    }
+    
+    @Override
+    public void insertChild(Area child, int index)
+    {
+        invalidateParentContent(child);
+        super.insertChild(child, index);
+        invalidateGrid();
+        invalidateContent();
+    }
+    
+    @Override
+    public void removeChild(Area child)
+    {
+        super.removeChild(child);
+        invalidateGrid();
+        invalidateContent();
     }
     
     @Override
@@ -140,6 +176,123 @@ public class AreaImpl extends DefaultArea
     {
         super.removeAllChildren();
         resetAverages();
+        invalidateGrid();
+        invalidateContent();
+        invalidateStyle();
+    }
+    
+    @Override
+    public void updateTopologies()
+    {
+        super.updateTopologies();
+        invalidateGrid();
+    }
+    
+    @Override
+    public void setGridPosition(Rectangular pos)
+    {
+        super.setGridPosition(pos);
+        if (getParent() instanceof AreaImpl)
+            ((AreaImpl) getParent()).invalidateGrid();
+    }
+    
+    @Override
+    public void setBounds(Rectangular bounds)
+    {
+        super.setBounds(bounds);
+        invalidateFlags();
+    }
+    
+    @Override
+    public void setBackgroundSeparated(boolean backgroundSeparated)
+    {
+        super.setBackgroundSeparated(backgroundSeparated);
+        invalidateFlags();
+    }
+    
+    @Override
+    public void setTopBorder(int width)
+    {
+        super.setTopBorder(width);
+        invalidateFlags();
+    }
+    
+    @Override
+    public void setBottomBorder(int width)
+    {
+        super.setBottomBorder(width);
+        invalidateFlags();
+    }
+    
+    @Override
+    public void setLeftBorder(int width)
+    {
+        super.setLeftBorder(width);
+        invalidateFlags();
+    }
+    
+    @Override
+    public void setRightBorder(int width)
+    {
+        super.setRightBorder(width);
+        invalidateFlags();
+    }
+    
+    /**
+     * Obtains the index of the grid cells occupied by the child areas. The index is created
+     * on demand from the current topology and it is discarded whenever the child areas
+     * or the topology change.
+     * @return the occupancy grid
+     */
+    public OccupancyGrid getOccupancyGrid()
+    {
+        if (grid == null)
+            grid = new OccupancyGrid(this);
+        return grid;
+    }
+    
+    /**
+     * Discards the current occupancy grid so that it is re-created when used next time.
+     */
+    protected void invalidateGrid()
+    {
+        grid = null;
+    }
+    
+    /**
+     * Discards the cached values of {@link #containsText()}, {@link #isHorizontalSeparator()}
+     * and {@link #isVerticalSeparator()}. This is called automatically when the boxes, bounds, borders
+     * or background separation of the area are changed using the area methods. The changes made directly
+     * to the rectangle returned by {@link #getBounds()} (e.g. using its {@code setX1()}) are not detected;
+     * this method must be called after such changes.
+     */
+    protected void invalidateFlags()
+    {
+        flags = 0;
+    }
+    
+    /**
+     * Discards the cached text and the content index of this area and all its ancestors.
+     */
+    protected void invalidateContent()
+    {
+        AreaImpl a = this;
+        while (a != null)
+        {
+            a.text = null;
+            a.textLength = -1;
+            a.contentIndex = null;
+            a = (a.getParent() instanceof AreaImpl) ? (AreaImpl) a.getParent() : null;
+        }
+    }
+    
+    /**
+     * Discards the cached content of the current parent of an area that is going to be moved.
+     */
+    private void invalidateParentContent(Area child)
+    {
+        if (child.getParent() instanceof AreaImpl)
+            ((AreaImpl) child.getParent()).invalidateContent();
     }
 
     /**
@@ -177,7 +330,7 @@ public class AreaImpl extends DefaultArea
     public void join(AreaImpl other, boolean horizontal)
     {
     	getBounds().expandToEnclose(other.getBounds());
-    	setName(getName() + " . " + other.getName());
+    	appendName(other);
         //update border information according to the mutual area positions
         if (horizontal)
         {
@@ -208,10 +361,107 @@ public class AreaImpl extends DefaultArea
         //add all the contained boxes
         getBoxes().addAll(other.getBoxes());
         updateAverages(other);
+        invalidateFlags();
+        invalidateContent();
+        invalidateStyle();
         //just a test
-        if (!this.hasSameBackground(other))
-        	System.err.println("Area: Warning: joining areas " + getName() + " and " + other.getName() + 
-        	        " of different background colors " + this.getBackgroundColor() + " x " + other.getBackgroundColor()); 
+        if (log.isDebugEnabled() && !this.hasSameBackground(other))
+            log.debug("Joining areas {} and {} of different background colors {} x {}",
+                    getName(), other.getName(), getBackgroundColor(), other.getBackgroundColor());
+    }
+    
+    /**
+     * Joins two child areas of this area: the second area is joined to the first one and removed.
+     * The occupancy grid of this area is patched instead of being re-created.
+     * @param n1 The child area that remains in the tree
+     * @param n2 The child area to be joined to n1 and removed
+     * @param pos The position of the result in the grid
+     * @param horizontal Horizontal or vertical join?
+     */
+    public void joinChildren(AreaImpl n1, AreaImpl n2, Rectangular pos, boolean horizontal)
+    {
+        mergeChildren(n1, n2, pos, horizontal);
+        final OccupancyGrid g = grid;
+        removeChild(n2);
+        grid = g;
+    }
+    
+    /**
+     * Joins two child areas of this area like {@link #joinChildren(AreaImpl, AreaImpl, Rectangular, boolean)}
+     * but the second area is only removed from the occupancy grid. It remains in the list of the child
+     * areas until it is removed by {@link #removeChildren(Collection)} so that a series of joins
+     * does not need to shift the list of the child areas repeatedly. Until then, the child areas
+     * should be only accessed using the occupancy grid.
+     * @param n1 The child area that remains in the tree
+     * @param n2 The child area to be joined to n1
+     * @param pos The position of the result in the grid
+     * @param horizontal Horizontal or vertical join?
+     */
+    public void mergeChildren(AreaImpl n1, AreaImpl n2, Rectangular pos, boolean horizontal)
+    {
+        final OccupancyGrid g = grid;
+        n1.joinArea(n2, pos, horizontal);
+        if (g != null)
+        {
+            g.removeArea(n2);
+            g.updateArea(n1, pos);
+            grid = g;
+        }
+    }
+    
+    /**
+     * Removes several child areas at once. The order of the remaining child areas is preserved
+     * and the occupancy grid is patched instead of being re-created.
+     * @param list The child areas to be removed
+     */
+    public void removeChildren(Collection<? extends Area> list)
+    {
+        if (!list.isEmpty())
+        {
+            final Set<Area> removed = Collections.newSetFromMap(new IdentityHashMap<Area, Boolean>(list.size()));
+            removed.addAll(list);
+            final List<Area> keep = new ArrayList<>(getChildCount());
+            for (Area child : getChildren())
+            {
+                if (!removed.contains(child))
+                    keep.add(child);
+            }
+            final OccupancyGrid g = grid;
+            super.removeAllChildren();
+            for (Area child : keep)
+                super.appendChild(child);
+            if (g != null)
+            {
+                for (Area child : list)
+                    g.removeArea(child);
+                grid = g;
+            }
+            invalidateContent();
+        }
+    }
+    
+    /**
+     * Inserts a new super-area as a child of this area and moves the selected child areas to the
+     * new area. The grid position of the new area must be already set. The occupancy grid of this area
+     * is patched instead of being re-created; the topology of the new area is not updated.
+     * @param grp The new super-area
+     * @param selected The child areas to be moved to the new area
+     * @param index The index of the new area among the child areas
+     */
+    public void insertSuperArea(AreaImpl grp, List<AreaImpl> selected, int index)
+    {
+        final OccupancyGrid g = grid;
+        final Rectangular gp = grp.getGridPosition();
+        insertChild(grp, index);
+        for (AreaImpl a : selected)
+            grp.appendChild(a);
+        if (g != null && gp != null)
+        {
+            for (AreaImpl a : selected)
+                g.removeArea(a);
+            g.addArea(grp, gp);
+            grid = g;
+        }
     }
     
     /**
@@ -223,7 +473,82 @@ public class AreaImpl extends DefaultArea
         for (Box box : other.getBoxes())
             addBox(box);
         getBounds().expandToEnclose(other.getBounds());
-        setName(getName() + " . " + other.getName());
+        appendName(other);
+        invalidateFlags();
+    }
+    
+    /**
+     * Obtains the area name. When some areas have been joined to this area, their names
+     * are appended to the returned name (see {@link SegmentationAreaTree#setAreaNameMode(Config.AreaNameMode)}).
+     * The area itself is not modified.
+     */
+    @Override
+    public String getName()
+    {
+        if (joinedNames != null)
+        {
+            StringBuilder ret = new StringBuilder(String.valueOf(super.getName()));
+            for (String name : joinedNames)
+                ret.append(" . ").append(name);
+            return ret.toString();
+        }
+        else
+            return super.getName();
+    }
+    
+    @Override
+    public void setName(String name)
+    {
+        joinedNames = null;
+        super.setName(name);
+    }
+    
+    /**
+     * Appends the name of a joined area to the name of this area according to the name mode
+     * of the area tree.
+     * @param other the joined area
+     */
+    private void appendName(AreaImpl other)
+    {
+        switch (getAreaNameMode())
+        {
+            case FULL:
+                setName(getName() + " . " + other.getName());
+                break;
+            case LAZY:
+                if (joinedNames == null)
+                    joinedNames = new ArrayList<String>();
+                joinedNames.add(String.valueOf(other.getPlainName()));
+                if (other.joinedNames != null)
+                    joinedNames.addAll(other.joinedNames);
+                break;
+            default:
+                break; //names not maintained
+        }
+    }
+    
+    /**
+     * Obtains the name mode of the tree this area belongs to. The areas that do not belong
+     * to a {@link SegmentationAreaTree} use the {@link Config.AreaNameMode#LAZY} mode.
+     * @return the name mode
+     */
+    private Config.AreaNameMode getAreaNameMode()
+    {
+        Area root = this;
+        while (root.getParent() != null)
+            root = root.getParent();
+        if (root.getAreaTree() instanceof SegmentationAreaTree)
+            return ((SegmentationAreaTree) root.getAreaTree()).getAreaNameMode();
+        else
+            return Config.AreaNameMode.LAZY;
+    }
+    
+    /**
+     * @return the area name without the names of the joined areas that have not been appended yet
+     */
+    private String getPlainName()
+    {
+        return super.getName();
     }
     
 	public int getLevel()
@@ -239,7 +564,7 @@ public class AreaImpl extends DefaultArea
 	public String toString()
     {
         String bs = "";
-        //bs += "{" + getAverageFontSize() + "=" + fontSizeSum + "/" + fontSizeCnt + "}"; 
+        //bs += styleStats; 
         /*    + ":" + getAverageFontWeight() 
             + ":" + getAverageFontStyle() + "}";*/
         
@@ -324,12 +649,20 @@ public class AreaImpl extends DefaultArea
      */
     public boolean containsText()
     {
-        for (Box root : getBoxes())
+        if ((flags & FLAG_TEXT_KNOWN) == 0)
         {
-            if (recursiveContainsText(root))
-                return true;
+            boolean ret = false;
+            for (Box root : getBoxes())
+            {
+                if (recursiveContainsText(root))
+                {
+                    ret = true;
+                    break;
+                }
+            }
+            flags |= ret ? (FLAG_TEXT_KNOWN | FLAG_TEXT) : FLAG_TEXT_KNOWN;
         }
-        return false;
+        return (flags & FLAG_TEXT) != 0;
     }
     
     private boolean recursiveContainsText(Box root)
@@ -438,10 +771,15 @@ public class AreaImpl extends DefaultArea
     @Override
     public boolean isHorizontalSeparator()
     {
-        return ((getBounds().getHeight() < 10 && getBounds().getWidth() > 20 * getBounds().getHeight())
-                || (getBounds().getHeight() < 3 && getBounds().getWidth() > 6))
-               && (separatedUp() || separatedDown())
-               && !containsText();
+        if ((flags & FLAG_HSEP_KNOWN) == 0)
+        {
+            boolean ret = ((getBounds().getHeight() < 10 && getBounds().getWidth() > 20 * getBounds().getHeight())
+                            || (getBounds().getHeight() < 3 && getBounds().getWidth() > 6))
+                           && (separatedUp() || separatedDown())
+                           && !containsText();
+            flags |= ret ? (FLAG_HSEP_KNOWN | FLAG_HSEP) : FLAG_HSEP_KNOWN;
+        }
+        return (flags & FLAG_HSEP) != 0;
     }
     
     /**
@@ -452,10 +790,15 @@ public class AreaImpl extends DefaultArea
     @Override
     public boolean isVerticalSeparator()
     {
-        return ((getBounds().getWidth() < 10 && getBounds().getHeight() > 20 * getBounds().getWidth())
-                || (getBounds().getWidth() < 3 && getBounds().getHeight() > 6))
-               && (separatedLeft() || separatedRight())
-               && !containsText();
+        if ((flags & FLAG_VSEP_KNOWN) == 0)
+        {
+            boolean ret = ((getBounds().getWidth() < 10 && getBounds().getHeight() > 20 * getBounds().getWidth())
+                            || (getBounds().getWidth() < 3 && getBounds().getHeight() > 6))
+                           && (separatedLeft() || separatedRight())
+                           && !containsText();
+            flags |= ret ? (FLAG_VSEP_KNOWN | FLAG_VSEP) : FLAG_VSEP_KNOWN;
+        }
+        return (flags & FLAG_VSEP) != 0;
     }
     
     @Override
@@ -493,6 +836,35 @@ public class AreaImpl extends DefaultArea
         return ret;
     }
     
+    /**
+     * Creates a deep copy of the subtree rooted at this area. The boxes and the immutable cached
+     * values (text, style) are shared with the original subtree; the computed averages are copied
+     * instead of being re-computed from the boxes. The topologies of the copied areas are not
+     * created; use {@link #updateTopologies()} on the copies when necessary.
+     * @return the root of the copied subtree
+     */
+    public AreaImpl copyTree()
+    {
+        AreaImpl ret = new AreaImpl(this);
+        if (getGridPosition() != null)
+            ret.setGridPosition(new Rectangular(getGridPosition()));
+        for (int i = 0; i < getChildCount(); i++)
+            ret.appendChildCopy(((AreaImpl) getChildAt(i)).copyTree());
+        //the subtree is equal so the cached text remains valid
+        ret.text = text;
+        ret.textLength = textLength;
+        return ret;
+    }
+    
+    /**
+     * Appends a copied child area whose averages are already included in the averages
+     * of this area.
+     */
+    private void appendChildCopy(AreaImpl child)
+    {
+        super.appendChild(child);
+    }
+    
     /**
      * Returns the font size declared for the first box. If there are multiple boxes,
      * the first one is used. If there are no boxes (an artificial area), 0 is returned.
@@ -513,10 +885,7 @@ public class AreaImpl extends DefaultArea
     @Override
     public float getFontSize()
     {
-        if (fontSizeCnt == 0)
-            return 0;
-        else
-            return fontSizeSum / fontSizeCnt;
+        return (styleStats == null) ? 0 : styleStats.getAverageFontSize();
     }
     
     /**
@@ -526,10 +895,7 @@ public class AreaImpl extends DefaultArea
     @Override
     public float getFontWeight()
     {
-        if (fontWeightCnt == 0)
-            return 0;
-        else
-            return fontWeightSum / fontWeightCnt;
+        return (styleStats == null) ? 0 : styleStats.getAverageFontWeight();
     }
     
     /**
@@ -539,28 +905,29 @@ public class AreaImpl extends DefaultArea
     @Override
     public float getFontStyle()
     {
-        if (fontStyleCnt == 0)
-            return 0;
-        else
-            return fontStyleSum / fontStyleCnt;
+        return (styleStats == null) ? 0 : styleStats.getAverageFontStyle();
     }
     
     @Override
     public float getUnderline()
     {
-        if (underlineCnt == 0)
-            return 0;
-        else
-            return underlineSum / underlineCnt;
+        return 0; //not accumulated from the boxes
     }
     
     @Override
     public float getLineThrough()
     {
-        if (lineThroughCnt == 0)
-            return 0;
-        else
-            return lineThroughSum / lineThroughCnt;
+        return 0; //not accumulated from the boxes
+    }
+    
+    /**
+     * @return the style statistics of this area (created when necessary)
+     */
+    private StyleStatistics getStyleStats()
+    {
+        if (styleStats == null)
+            styleStats = new StyleStatistics();
+        return styleStats;
     }
     
     
@@ -594,16 +961,9 @@ public class AreaImpl extends DefaultArea
     {
         if (other instanceof AreaImpl)
         {
-            fontSizeCnt += ((AreaImpl) other).fontSizeCnt;
-            fontSizeSum += ((AreaImpl) other).fontSizeSum;
-            fontWeightCnt += ((AreaImpl) other).fontWeightCnt;
-            fontWeightSum += ((AreaImpl) other).fontWeightSum;
-            fontStyleCnt += ((AreaImpl) other).fontStyleCnt;
-            fontStyleSum += ((AreaImpl) other).fontStyleSum;
-            underlineCnt += ((AreaImpl) other).underlineCnt;
-            underlineSum += ((AreaImpl) other).underlineSum;
-            lineThroughCnt += ((AreaImpl) other).lineThroughCnt;
-            lineThroughSum += ((AreaImpl) other).lineThroughSum;
+            final StyleStatistics ostats = ((AreaImpl) other).styleStats;
+            if (ostats != null)
+                getStyleStats().add(ostats);
         }
         else
             log.error("FIXME: mixing AreaImpl with other area implementations is not implemented now; the averages won't be accurate!");
@@ -615,30 +975,87 @@ public class AreaImpl extends DefaultArea
      */
     protected void resetAverages()
     {
-        fontSizeCnt = 0;
-        fontSizeSum = 0;
-        fontWeightCnt = 0;
-        fontWeightSum = 0;
-        fontStyleCnt = 0; 
-        fontStyleSum = 0; 
-        underlineCnt = 0; 
-        underlineSum = 0; 
-        lineThroughCnt = 0; 
-        lineThroughSum = 0;
+        if (styleStats != null)
+            styleStats.reset();
         for (Box box : getBoxes())
             updateAveragesForBox(box);
     }
     
+    /**
+     * Returns the text of the area subtree. For the leaf areas, this corresponds to {@link #getBoxText()},
+     * for the other areas, this is a concatenation of the texts of the child areas. The text
+     * is cached until the subtree is modified.
+     */
     @Override
     public String getText()
     {
-        String ret = "";
-        if (isLeaf())
-            ret = getBoxText();
+        if (text == null)
+        {
+            if (isLeaf())
+                text = getBoxText();
+            else
+            {
+                StringBuilder ret = new StringBuilder(Math.max(getSubtreeTextLength(), 16));
+                appendText(ret);
+                text = ret.toString();
+            }
+            textLength = text.length();
+        }
+        return text;
+    }
+    
+    /**
+     * Obtains the length of the text returned by {@link #getText()} without creating the text.
+     * @return the text length
+     */
+    public int getSubtreeTextLength()
+    {
+        if (textLength == -1)
+        {
+            int ret = 0;
+            if (isLeaf())
+            {
+                for (Box box : getBoxes())
+                    ret += box.getText().length();
+                if (getBoxes().size() > 1)
+                    ret += getBoxes().size() - 1; //the spaces between boxes
+            }
+            else
+            {
+                for (int i = 0; i < getChildCount(); i++)
+                {
+                    final Area child = getChildAt(i);
+                    if (child instanceof AreaImpl)
+                        ret += ((AreaImpl) child).getSubtreeTextLength();
+                    else
+                        ret += child.getText().length();
+                }
+            }
+            textLength = ret;
+        }
+        return textLength;
+    }
+    
+    /**
+     * Appends the text of the area subtree to a string builder.
+     */
+    private void appendText(StringBuilder dest)
+    {
+        if (text != null)
+            dest.append(text);
+        else if (isLeaf())
+            dest.append(getBoxText());
         else
+        {
             for (int i = 0; i < getChildCount(); i++)
-                ret += getChildAt(i).getText();
-        return ret;
+            {
+                final Area child = getChildAt(i);
+                if (child instanceof AreaImpl)
+                    ((AreaImpl) child).appendText(dest);
+                else
+                    dest.append(child.getText());
+            }
+        }
     }
     
     /**
@@ -676,6 +1093,25 @@ public class AreaImpl extends DefaultArea
         seps = Config.createSeparators(this);
     }
     
+    /**
+     * Creates a set of the horizontal and vertical separators using the given algorithm
+     * @param algorithm the separator detection algorithm to be used
+     */
+    public void createSeparators(Config.SeparatorAlgorithm algorithm)
+    {
+        seps = Config.createSeparators(this, algorithm);
+    }
+    
+    /**
+     * Creates a set of the horizontal and vertical separators using the given algorithm
+     * @param algorithm the separator detection algorithm to be used
+     * @param parallel detect the separators of the larger areas in parallel
+     */
+    public void createSeparators(Config.SeparatorAlgorithm algorithm, boolean parallel)
+    {
+        seps = Config.createSeparators(this, algorithm, parallel);
+    }
+    
     /**
      * @return the set of separators in this area
      */
@@ -690,35 +1126,31 @@ public class AreaImpl extends DefaultArea
      */
     public void removeSimpleSeparators()
     {
-        removeSimpleSeparators(seps.getHorizontal());
-        removeSimpleSeparators(seps.getVertical());
-        removeSimpleSeparators(seps.getBoxsep());
+        seps.removeIf(new Predicate<Separator>() {
+            public boolean test(Separator sep)
+            {
+                return isSimpleSeparator(sep);
+            }
+        });
     }
     
     /**
-     * Removes simple separators from a vector of separators. A simple separator
+     * Checks whether the separator is simple. A simple separator
      * has only one or zero visual areas at each side
      */
-    private void removeSimpleSeparators(List<Separator> v)
+    private boolean isSimpleSeparator(Separator sep)
     {
-        //System.out.println("Rem: this="+this);
-        for (Iterator<Separator> it = v.iterator(); it.hasNext();)
+        if (sep.getType() == Separator.HORIZONTAL || sep.getType() == Separator.BOXH)
         {
-            Separator sep = it.next();
-            if (sep.getType() == Separator.HORIZONTAL || sep.getType() == Separator.BOXH)
-            {
-                int a = countAreasAbove(sep);
-                int b = countAreasBelow(sep);
-                if (a <= 1 && b <= 1)
-                    it.remove();
-            }
-            else
-            {
-                int a = countAreasLeft(sep);
-                int b = countAreasRight(sep);
-                if (a <= 1 && b <= 1)
-                    it.remove();
-            }
+            int a = countAreasAbove(sep);
+            int b = countAreasBelow(sep);
+            return (a <= 1 && b <= 1);
+        }
+        else
+        {
+            int a = countAreasLeft(sep);
+            int b = countAreasRight(sep);
+            return (a <= 1 && b <= 1);
         }
     }
 
@@ -730,24 +1162,10 @@ public class AreaImpl extends DefaultArea
         int gx1 = getTopology().toTopologyX(sep.getX1());
         int gx2 = getTopology().toTopologyX(sep.getX2());
         int gy = getTopology().toTopologyY(sep.getY1() - 1);
-        int ret = 0;
         if (gx1 >= 0 && gx2 >= 0 && gy >= 0)
-        {
-            int i = gx1;
-            while (i <= gx2)
-            {
-                AreaImpl node = (AreaImpl) getTopology().findAreaAt(i, gy);
-                //System.out.println("Search: " + i + ":" + gy + " = " + node);
-                if (node != null)
-                {
-                    ret++;
-                    i += getTopology().getPosition(node).getWidth();
-                }
-                else
-                    i++;
-            }
-        }
-        return ret;
+            return getOccupancyGrid().countAreasInRow(gy, gx1, gx2);
+        else
+            return 0;
     }
     
     /**
@@ -758,24 +1176,10 @@ public class AreaImpl extends DefaultArea
         int gx1 = getTopology().toTopologyX(sep.getX1());
         int gx2 = getTopology().toTopologyX(sep.getX2());
         int gy = getTopology().toTopologyY(sep.getY2() + 1);
-        int ret = 0;
         if (gx1 >= 0 && gx2 >= 0 && gy >= 0)
-        {
-            int i = gx1;
-            while (i <= gx2)
-            {
-                AreaImpl node = (AreaImpl) getTopology().findAreaAt(i, gy);
-                //System.out.println("Search: " + i + ":" + gy + " = " + node);
-                if (node != null)
-                {
-                    ret++;
-                    i += getTopology().getPosition(node).getWidth();
-                }
-                else
-                    i++;
-            }
-        }
-        return ret;
+            return getOccupancyGrid().countAreasInRow(gy, gx1, gx2);
+        else
+            return 0;
     }
 
     /**
@@ -786,107 +1190,39 @@ public class AreaImpl extends DefaultArea
         int gy1 = getTopology().toTopologyY(sep.getY1());
         int gy2 = getTopology().toTopologyY(sep.getY2());
         int gx = getTopology().toTopologyX(sep.getX1() - 1);
-        int ret = 0;
         if (gy1 >= 0 && gy2 >= 0 && gx >= 0)
-        {
-            int i = gy1;
-            while (i <= gy2)
-            {
-                AreaImpl node = (AreaImpl) getTopology().findAreaAt(gx, i);
-                if (node != null)
-                {
-                    ret++;
-                    i += getTopology().getPosition(node).getWidth();
-                }
-                else
-                    i++;
-            }
-        }
-        return ret;
+            return getOccupancyGrid().countAreasInColumn(gx, gy1, gy2);
+        else
+            return 0;
     }
     
     /**
-     * @return the number of the areas directly on the left of the separator
+     * @return the number of the areas directly on the right of the separator
      */
     private int countAreasRight(Separator sep)
     {
         int gy1 = getTopology().toTopologyY(sep.getY1());
         int gy2 = getTopology().toTopologyY(sep.getY2());
         int gx = getTopology().toTopologyX(sep.getX2() + 1);
-        int ret = 0;
         if (gy1 >= 0 && gy2 >= 0 && gx >= 0)
-        {
-            int i = gy1;
-            while (i <= gy2)
-            {
-                AreaImpl node = (AreaImpl) getTopology().findAreaAt(gx, i);
-                if (node != null)
-                {
-                    ret++;
-                    i += getTopology().getPosition(node).getWidth();
-                }
-                else
-                    i++;
-            }
-        }
-        return ret;
+            return getOccupancyGrid().countAreasInColumn(gx, gy1, gy2);
+        else
+            return 0;
     }
     
     /**
-     * Looks for the nearest text box area placed above the separator. If there are more
-     * such areas in the same distance, the leftmost one is returned.
+     * Looks for the nearest box placed above the separator and returns the area that contains it.
+     * If there are more such boxes in the same distance, the leftmost one is used. The areas found
+     * in the child subtrees must contain some text. The boxes are looked up in an index of this subtree
+     * that is created on demand (see {@link ContentIndex}).
      * @param sep the separator 
-     * @return the leaf area containing the box or <code>null</code> if there is nothing above the separator
+     * @return the area containing the text or <code>null</code> if there is nothing above the separator
      */
     public AreaImpl findContentAbove(Separator sep)
     {
-        return recursiveFindAreaAbove(sep.getX1(), sep.getX2(), 0, sep.getY1());
-    }
-    
-    private AreaImpl recursiveFindAreaAbove(int x1, int x2, int y1, int y2)
-    {
-        AreaImpl ret = null;
-        int maxx = x2;
-        int miny = y1;
-        List <Box> boxes = getBoxes();
-        for (Box box : boxes)
-        {
-            int bx = box.getBounds().getX1();
-            int by = box.getBounds().getY2();
-            if ((bx >= x1 && bx <= x2 && by < y2) &&  //is placed above
-                    (by > miny ||
-                     (by == miny && bx < maxx)))
-            {
-                ret = this; //found in our boxes
-                if (bx < maxx) maxx = bx;
-                if (by > miny) miny = by;
-            }
-        }
-
-        for (int i = 0; i < getChildCount(); i++)
-        {
-            Area child = getChildAt(i);
-            if (child instanceof AreaImpl)
-            {
-                AreaImpl area = ((AreaImpl) child).recursiveFindAreaAbove(x1, x2, miny, y2);
-                if (area != null)
-                {   
-                    int bx = area.getX1(); 
-                    int by = area.getY2();
-                    int len = area.getText().length();
-                    if ((len > 0) && //we require some text in the area
-                            (by > miny ||
-                             (by == miny && bx < maxx)))
-                    {
-                        ret = area;
-                        if (bx < maxx) maxx = bx;
-                        if (by > miny) miny = by;
-                    }
-                }
-            }
-        }
-        
-        return ret;
+        if (contentIndex == null)
+            contentIndex = new ContentIndex(this);
+        return contentIndex.findAbove(sep.getX1(), sep.getX2(), sep.getY1());
     }
     
     
@@ -900,94 +1236,18 @@ public class AreaImpl extends DefaultArea
 	{
 		super.addBox(box);
 		updateAveragesForBox(box);
+		invalidateFlags();
+		invalidateContent();
+		invalidateStyle();
 	}
 	
 	private void updateAveragesForBox(Box box)
 	{
         if (box.getType() == Box.Type.TEXT_CONTENT)
         {
-            int len = box.getText().trim().length();
+            final int len = box.getText().trim().length();
             if (len > 0)
-            {
-                fontSizeSum += getAverageBoxFontSize(box) * len;
-                fontSizeCnt += len;
-                fontWeightSum += getAverageBoxFontWeight(box) * len;
-                fontWeightCnt += len;
-                fontStyleSum += getAverageBoxFontStyle(box) * len;
-                fontStyleCnt += len;
-            }
-        }
-	}
-	
-	private float getAverageBoxFontSize(Box box)
-	{
-		if (box.getType() == Type.TEXT_CONTENT)
-			return box.getFontSize();
-		else if (box.getType() == Type.REPLACED_CONTENT)
-			return 0;
-		else
-		{
-			float sum = 0;
-			int cnt = 0;
-			for (int i = 0; i < getChildCount(); i++)
-			{
-				Box child = box.getChildAt(i);
-				String text = child.getText().trim();
-				cnt += text.length();
-				sum += getAverageBoxFontSize(child);
-			}
-			if (cnt > 0)
-				return sum / cnt;
-			else
-				return 0;
-		}
-	}
-	
-	private float getAverageBoxFontWeight(Box box)
-	{
-        if (box.getType() == Type.TEXT_CONTENT)
-            return box.getFontWeight();
-        else if (box.getType() == Type.REPLACED_CONTENT)
-            return 0;
-        else
-        {
-            float sum = 0;
-            int cnt = 0;
-            for (int i = 0; i < getChildCount(); i++)
-            {
-                Box child = box.getChildAt(i);
-                String text = child.getText().trim();
-                cnt += text.length();
-                sum += getAverageBoxFontWeight(child);
-            }
-            if (cnt > 0)
-                return sum / cnt;
-            else
-                return 0;
-        }
-	}
-	
-	private float getAverageBoxFontStyle(Box box)
-	{
-        if (box.getType() == Type.TEXT_CONTENT)
-            return box.getFontStyle();
-        else if (box.getType() == Type.REPLACED_CONTENT)
-            return 0;
-        else
-        {
-            float sum = 0;
-            int cnt = 0;
-            for (int i = 0; i < getChildCount(); i++)
-            {
-                Box child = box.getChildAt(i);
-                String text = child.getText().trim();
-                cnt += text.length();
-                sum += getAverageBoxFontStyle(child);
-            }
-            if (cnt > 0)
-                return sum / cnt;
-            else
-                return 0;
+                getStyleStats().addText(len, box.getFontSize() * len, box.getFontWeight() * len, box.getFontStyle() * len);
         }
 	}
 	
@@ -1066,12 +1326,33 @@ public class AreaImpl extends DefaultArea
     }
 
     /**
-     * Obtains the overall style of the area.
+     * Obtains the overall style of the area. The returned style is a copy of the cached style
+     * so that the cache is not affected when the style is modified.
      * @return the area style
      */
     public AreaStyle getStyle()
     {
-        return new AreaStyle(this);
+        return new AreaStyle(getCachedStyle());
+    }
+    
+    /**
+     * Obtains the cached style of the area. The style is cached until the contents
+     * of the area change; it must not be modified.
+     * @return the area style
+     */
+    private AreaStyle getCachedStyle()
+    {
+        if (style == null || style.getBackgroundColor() != getBackgroundColor())
+            style = new AreaStyle(this);
+        return style;
+    }
+    
+    /**
+     * Discards the cached style so that it is re-computed when used next time.
+     */
+    protected void invalidateStyle()
+    {
+        style = null;
     }
     
     /**
@@ -1081,7 +1362,7 @@ public class AreaImpl extends DefaultArea
      */
     public boolean hasSameStyle(AreaImpl other)
     {
-        return getStyle().isSameStyle(other.getStyle());
+        return getCachedStyle().isSameStyle(other.getCachedStyle());
     }
     
 }
@@ -39,12 +39,25 @@ public class AreaStyle
         this.averageColorLuminosity = source.getColorLuminosity();
         this.backgroundColor = source.getBackgroundColor();
     }
+    
+    public AreaStyle(AreaStyle src)
+    {
+        this.averageFontSize = src.averageFontSize;
+        this.averageFontWeight = src.averageFontWeight;
+        this.averageFontStyle = src.averageFontStyle;
+        this.averageColorLuminosity = src.averageColorLuminosity;
+        this.backgroundColor = src.backgroundColor;
+    }
 
     public double getAverageFontSize()
     {
         return averageFontSize;
     }
 
+    /**
+     * @deprecated The style obtained from {@link AreaImpl#getStyle()} is a copy; modifying it does not affect the area.
+     */
+    @Deprecated
     public void setAverageFontSize(float averageFontSize)
     {
         this.averageFontSize = averageFontSize;
@@ -55,6 +68,10 @@ public class AreaStyle
         return averageFontWeight;
     }
 
+    /**
+     * @deprecated The style obtained from {@link AreaImpl#getStyle()} is a copy; modifying it does not affect the area.
+     */
+    @Deprecated
     public void setAverageFontWeight(float averageFontWeight)
     {
         this.averageFontWeight = averageFontWeight;
@@ -65,6 +82,10 @@ public class AreaStyle
         return averageFontStyle;
     }
 
+    /**
+     * @deprecated The style obtained from {@link AreaImpl#getStyle()} is a copy; modifying it does not affect the area.
+     */
+    @Deprecated
     public void setAverageFontStyle(float averageFontStyle)
     {
         this.averageFontStyle = averageFontStyle;
@@ -75,6 +96,10 @@ public class AreaStyle
         return averageColorLuminosity;
     }
 
+    /**
+     * @deprecated The style obtained from {@link AreaImpl#getStyle()} is a copy; modifying it does not affect the area.
+     */
+    @Deprecated
     public void setAverageColorLuminosity(float averageColorLuminosity)
     {
         this.averageColorLuminosity = averageColorLuminosity;
@@ -85,6 +110,10 @@ public class AreaStyle
         return backgroundColor;
     }
 
+    /**
+     * @deprecated The style obtained from {@link AreaImpl#getStyle()} is a copy; modifying it does not affect the area.
+     */
+    @Deprecated
     public void setBackgroundColor(Color backgroundColor)
     {
         this.backgroundColor = backgroundColor;
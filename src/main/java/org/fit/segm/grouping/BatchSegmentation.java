@@ -0,0 +1,158 @@
+/**
+ * BatchSegmentation.java
+ *
+ * Created on 17. 10. 2026, 17:43:30 by agent
+ */
+package org.fit.segm.grouping;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.fit.layout.api.AreaTreeOperator;
+import org.fit.layout.model.AreaTree;
+import org.fit.layout.model.Page;
+
+/**
+ * Segmentation of a sequence of pages using an executor. Each page is processed by a separate task that
+ * creates the area tree and applies the operators. The results are obtained by iterating over this object,
+ * either in the order of the source pages or in the order of completion.
+ * <p>
+ * The source pages are read lazily: at most {@code maxPending} pages are being processed or waiting
+ * for being consumed at the same time, so that a slow consumer or a large source does not cause
+ * an unbounded memory use.
+ * <p>
+ * The iterator itself is not thread-safe; it should be consumed by a single thread.
+ *
+ * @author agent
+ */
+public class BatchSegmentation implements Iterator<AreaTree>
+{
+    private final Provider provider;
+    private final List<AreaTreeOperator> operators;
+    private final Iterator<Page> source;
+    private final Executor executor;
+    private final int maxPending;
+    private final boolean ordered;
+
+    /** Pending tasks in the source order (the ordered mode) */
+    private final Deque<Future<AreaTree>> queue;
+    /** Pending tasks in the completion order (the unordered mode) */
+    private final CompletionService<AreaTree> completion;
+    /** The number of submitted tasks whose results have not been consumed yet */
+    private int pending;
+
+
+    /**
+     * Creates a new batch.
+     * @param provider the provider used for creating the area trees
+     * @param operators the operators applied on each area tree (in the given order)
+     * @param source the source pages
+     * @param executor the executor used for running the segmentation tasks
+     * @param maxPending the maximal number of pages being processed or waiting for being consumed
+     * @param ordered {@code true} for obtaining the results in the order of the source pages,
+     * {@code false} for obtaining the results as they are completed
+     */
+    public BatchSegmentation(Provider provider, List<AreaTreeOperator> operators, Iterator<Page> source,
+            Executor executor, int maxPending, boolean ordered)
+    {
+        if (maxPending < 1)
+            throw new IllegalArgumentException("maxPending must be positive");
+        this.provider = provider;
+        this.operators = operators;
+        this.source = source;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.ordered = ordered;
+        this.queue = ordered ? new ArrayDeque<Future<AreaTree>>(maxPending) : null;
+        this.completion = ordered ? null : new ExecutorCompletionService<AreaTree>(executor);
+        this.pending = 0;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        fill();
+        return pending > 0;
+    }
+
+    /**
+     * Obtains the next segmented page. Waits for the result when it is not available yet.
+     * @throws SegmentationException when the segmentation of the page failed
+     */
+    @Override
+    public AreaTree next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        try {
+            Future<AreaTree> result = ordered ? queue.removeFirst() : completion.take();
+            pending--;
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SegmentationException("Interrupted while waiting for the segmentation result", e);
+        } catch (ExecutionException e) {
+            throw new SegmentationException("Page segmentation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Submits new tasks until the maximal number of pending pages is reached.
+     */
+    private void fill()
+    {
+        while (pending < maxPending && source.hasNext())
+        {
+            final Page page = source.next();
+            final Callable<AreaTree> task = new Callable<AreaTree>() {
+                public AreaTree call()
+                {
+                    return segment(page);
+                }
+            };
+            if (ordered)
+            {
+                FutureTask<AreaTree> ftask = new FutureTask<AreaTree>(task);
+                executor.execute(ftask);
+                queue.addLast(ftask);
+            }
+            else
+                completion.submit(task);
+            pending++;
+        }
+    }
+
+    private AreaTree segment(Page page)
+    {
+        AreaTree atree = provider.createAreaTree(page);
+        for (AreaTreeOperator op : operators)
+            op.apply(atree);
+        return atree;
+    }
+
+    //==============================================================================
+
+    /**
+     * An exception thrown when the segmentation of a page in the batch fails.
+     */
+    public static class SegmentationException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        public SegmentationException(String message, Throwable cause)
+        {
+            super(message, cause);
+        }
+    }
+
+}
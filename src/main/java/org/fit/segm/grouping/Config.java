@@ -8,6 +8,7 @@ package org.fit.segm.grouping;
 import org.fit.segm.grouping.op.GroupAnalyzer;
 import org.fit.segm.grouping.op.SeparatorSet;
 import org.fit.segm.grouping.op.SeparatorSetHVS;
+import org.fit.segm.grouping.op.SeparatorSetSweep;
 
 
 /**
@@ -43,6 +44,26 @@ public class Config
      * won't be considered at all. */
     public static final double TAG_PROBABILITY_THRESHOLD = 0.3;
     
+    /** The available separator detection algorithms */
+    public enum SeparatorAlgorithm
+    {
+        /** Recursive horizontal/vertical separators with shrinking ({@link SeparatorSetHVS}) */
+        HVS,
+        /** The same separators as HVS found by a sweep over the area edges ({@link SeparatorSetSweep}) */
+        SWEEP
+    }
+    
+    /** The ways of maintaining the names of the joined areas (see {@link SegmentationAreaTree#setAreaNameMode(AreaNameMode)}) */
+    public enum AreaNameMode
+    {
+        /** The names are concatenated immediately when the areas are joined */
+        FULL,
+        /** The names of the joined areas are kept in a list and concatenated when the name is requested */
+        LAZY,
+        /** The names of the joined areas are not used; the area keeps its original name */
+        NONE
+    }
+    
     /**
      * Creates a group analyzer for an area using the selected implementation.
      * @param root the root area for separator detection
@@ -58,18 +79,50 @@ public class Config
     }
     
     /**
-     * Creates the separators for an area using the selected algorithm
+     * Creates the separators for an area using the default {@link SeparatorAlgorithm#HVS} algorithm
      * @param root the root area
      * @return the created separator set
      */
     public static SeparatorSet createSeparators(AreaImpl root)
+    {
+        return createSeparators(root, SeparatorAlgorithm.HVS);
+    }
+    
+    /**
+     * Creates the separators for an area using the given algorithm
+     * @param root the root area
+     * @param algorithm the separator detection algorithm to be used
+     * @return the created separator set
+     */
+    public static SeparatorSet createSeparators(AreaImpl root, SeparatorAlgorithm algorithm)
+    {
+        return createSeparators(root, algorithm, false);
+    }
+    
+    /**
+     * Creates the separators for an area using the given algorithm
+     * @param root the root area
+     * @param algorithm the separator detection algorithm to be used
+     * @param parallel compute the separators of the independent virtual sub-areas in parallel
+     * (see {@link SeparatorSet#isParallel()})
+     * @return the created separator set
+     */
+    public static SeparatorSet createSeparators(AreaImpl root, SeparatorAlgorithm algorithm, boolean parallel)
     {
         SeparatorSet sset;
         //sset = new SeparatorSetHV(root);
-        sset = new SeparatorSetHVS(root);
         //sset = new SeparatorSetColumns(root);
         //sset = new SeparatorSetSim(root);
         //sset = new SeparatorSetGrid(root);
+        switch (algorithm)
+        {
+            case SWEEP:
+                sset = new SeparatorSetSweep(root, null, parallel);
+                break;
+            default:
+                sset = new SeparatorSetHVS(root, null, parallel);
+                break;
+        }
         
         sset.applyFinalFilters();
         return sset;
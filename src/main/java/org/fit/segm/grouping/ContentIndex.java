@@ -0,0 +1,153 @@
+/**
+ * ContentIndex.java
+ *
+ * Created on 17. 10. 2026, 17:40:31 by agent
+ */
+package org.fit.segm.grouping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.Box;
+
+/**
+ * An index of the boxes in an area subtree used for finding the nearest content above a given position.
+ * The index mirrors the area subtree. For every area, it keeps the left and bottom edges of the own boxes
+ * of the area and the range of these edges over all the boxes in the subtree of the area.
+ * <p>
+ * The lookup follows the original recursive search: the own boxes of an area are compared by their
+ * bottom and left edges, the areas found in the child subtrees are compared by the bottom and left
+ * edges of the whole area and they are only accepted when they contain some text. The child subtrees
+ * that contain no box in the searched range are skipped using the precomputed edge ranges, so only
+ * the subtrees around the searched position are visited.
+ *
+ * @author agent
+ */
+public class ContentIndex
+{
+    /** The index of the subtree root */
+    private final Node root;
+
+
+    /**
+     * Creates the index for the given subtree.
+     * @param root the subtree root
+     */
+    public ContentIndex(AreaImpl root)
+    {
+        this.root = new Node(root);
+    }
+
+    /**
+     * Finds the area containing the nearest box whose left edge is in the given interval and that is placed
+     * above the given Y coordinate. The own boxes of the subtree root are compared by their bottom and left
+     * edges. The areas found in the child subtrees are compared by their own bottom and left edges and they
+     * must contain some text. If there are more candidates with the same bottom edge, the leftmost one
+     * is used; the remaining ties are resolved by the document order.
+     * @param x1 the minimal left edge
+     * @param x2 the maximal left edge
+     * @param y the Y coordinate; the bottom edge of the box must be lower than this
+     * @return the found area or {@code null}
+     */
+    public AreaImpl findAbove(int x1, int x2, int y)
+    {
+        return find(root, x1, x2, 0, y);
+    }
+
+    //==============================================================================
+
+    private AreaImpl find(Node node, int x1, int x2, int y1, int y2)
+    {
+        AreaImpl ret = null;
+        int maxx = x2;
+        int miny = y1;
+        for (int i = 0; i < node.xs.length; i++)
+        {
+            final int bx = node.xs[i];
+            final int by = node.ys[i];
+            if ((bx >= x1 && bx <= x2 && by < y2) && //is placed above
+                    (by > miny || (by == miny && bx < maxx)))
+            {
+                ret = node.area; //found in our boxes
+                if (bx < maxx) maxx = bx;
+                if (by > miny) miny = by;
+            }
+        }
+
+        for (Node child : node.children)
+        {
+            //skip the subtrees with no boxes in the searched range
+            if (child.maxX < x1 || child.minX > x2 || child.minY >= y2 || child.maxY < miny)
+                continue;
+            final AreaImpl area = find(child, x1, x2, miny, y2);
+            if (area != null)
+            {
+                final int bx = area.getX1();
+                final int by = area.getY2();
+                if (area.getText().length() > 0 && //we require some text in the area
+                        (by > miny || (by == miny && bx < maxx)))
+                {
+                    ret = area;
+                    if (bx < maxx) maxx = bx;
+                    if (by > miny) miny = by;
+                }
+            }
+        }
+        return ret;
+    }
+
+    //==============================================================================
+
+    /**
+     * The index of a single area.
+     */
+    private static class Node
+    {
+        final AreaImpl area;
+        /** The left edges of the own boxes */
+        final int[] xs;
+        /** The bottom edges of the own boxes */
+        final int[] ys;
+        final Node[] children;
+        /** The range of the left and bottom edges of the boxes in the subtree (empty for no boxes) */
+        int minX, maxX, minY, maxY;
+
+        Node(AreaImpl area)
+        {
+            this.area = area;
+            final List<Box> boxes = area.getBoxes();
+            xs = new int[boxes.size()];
+            ys = new int[boxes.size()];
+            minX = minY = Integer.MAX_VALUE;
+            maxX = maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < xs.length; i++)
+            {
+                xs[i] = boxes.get(i).getBounds().getX1();
+                ys[i] = boxes.get(i).getBounds().getY2();
+                include(xs[i], xs[i], ys[i], ys[i]);
+            }
+            final List<Node> list = new ArrayList<Node>(area.getChildCount());
+            for (int i = 0; i < area.getChildCount(); i++)
+            {
+                final Area child = area.getChildAt(i);
+                if (child instanceof AreaImpl)
+                {
+                    final Node cnode = new Node((AreaImpl) child);
+                    include(cnode.minX, cnode.maxX, cnode.minY, cnode.maxY);
+                    list.add(cnode);
+                }
+            }
+            children = list.toArray(new Node[list.size()]);
+        }
+
+        private void include(int x1, int x2, int y1, int y2)
+        {
+            if (x1 < minX) minX = x1;
+            if (x2 > maxX) maxX = x2;
+            if (y1 < minY) minY = y1;
+            if (y2 > maxY) maxY = y2;
+        }
+    }
+
+}
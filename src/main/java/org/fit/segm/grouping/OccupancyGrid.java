@@ -0,0 +1,655 @@
+/**
+ * OccupancyGrid.java
+ *
+ * Created on 17. 10. 2026, 17:31:44 by agent
+ */
+package org.fit.segm.grouping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTopology;
+import org.fit.layout.model.Rectangular;
+
+/**
+ * A dense index of the grid cells occupied by the child areas of an area. Each cell contains
+ * the slot number of the child area that occupies the cell (or -1) and the skip pointers to the next
+ * occupied cell in the same row and column. This allows finding the next occupied cell
+ * to the right or below in a single step instead of probing the topology cell by cell.
+ * Moreover, the prefix counts of the area runs in each row and column allow counting the areas
+ * touching a range of cells in constant time.
+ * <p>
+ * When several child areas overlap in a cell, the first one in the child order is used, which
+ * corresponds to {@link AreaTopology#findAreaAt(int, int)}. The remaining areas overlapping the cell
+ * are kept in a per-cell list so that they may replace the area when it is removed. The grid may be
+ * patched when the child areas are joined or grouped (see {@link #removeArea(Area)},
+ * {@link #updateArea(Area, Rectangular)} and {@link #addArea(Area, Rectangular)}); only the cells
+ * of the changed areas are updated and the order of the areas follows the current child order
+ * of the parent area. The run counts are kept in a Fenwick tree for every row and column.
+ *
+ * @author agent
+ */
+public class OccupancyGrid
+{
+    /** The gap between the orders of the neighboring areas when the orders are assigned */
+    private static final long ORDER_GAP = 1L << 20;
+    
+    /** The parent area whose child areas are indexed */
+    private final Area parent;
+    /** The indexed areas; the removed areas are replaced by {@code null} */
+    private final List<Area> areas;
+    /** The grid positions of the indexed areas */
+    private final List<Rectangular> positions;
+    /** Slot numbers of the indexed areas */
+    private final Map<Area, Integer> slots;
+    /** The order of the areas in the parent area for every slot (a lower order wins the overlapping cells) */
+    private long[] orders;
+    private final int width;
+    private final int height;
+    /** Slot number for every cell (row by row) or -1 */
+    private final int[] cells;
+    /** The first node of the list of other slots occupying the cell or -1 */
+    private final int[] overlaps;
+    /** The slot numbers of the overlap list nodes */
+    private int[] nodeSlot;
+    /** The next node in the overlap list or -1; the free nodes are linked the same way */
+    private int[] nodeNext;
+    /** The number of overlap list nodes used so far */
+    private int nodeCount;
+    /** The first free overlap list node or -1 */
+    private int freeNode;
+    /** The X coordinate of the nearest occupied cell at the same or greater X in the row or -1 */
+    private final int[] nextX;
+    /** The X coordinate of the nearest occupied cell at the same or lower X in the row or -1 */
+    private final int[] prevX;
+    /** The Y coordinate of the nearest occupied cell at the same or greater Y in the column or -1 */
+    private final int[] nextY;
+    /** Marks the cells where an area run starts in the row */
+    private final boolean[] rowStart;
+    /** Marks the cells where an area run starts in the column */
+    private final boolean[] colStart;
+    /** Fenwick trees of the run starts in every row */
+    private final int[] rowRuns;
+    /** Fenwick trees of the run starts in every column */
+    private final int[] colRuns;
+
+    /**
+     * Creates the index for the child areas of the given area.
+     * @param parent the parent area whose topology is used
+     */
+    public OccupancyGrid(Area parent)
+    {
+        this.parent = parent;
+        final AreaTopology t = parent.getTopology();
+        width = Math.max(t.getTopologyWidth(), 0);
+        height = Math.max(t.getTopologyHeight(), 0);
+        final int cnt = parent.getChildCount();
+        areas = new ArrayList<Area>(cnt);
+        positions = new ArrayList<Rectangular>(cnt);
+        slots = new IdentityHashMap<Area, Integer>(cnt);
+        orders = new long[Math.max(cnt, 1)];
+        cells = new int[width * height];
+        Arrays.fill(cells, -1);
+        overlaps = new int[cells.length];
+        Arrays.fill(overlaps, -1);
+        nodeSlot = new int[16];
+        nodeNext = new int[16];
+        freeNode = -1;
+        for (int i = 0; i < cnt; i++)
+        {
+            final Area child = parent.getChildAt(i);
+            final Rectangular pos = t.getPosition(child);
+            if (pos != null)
+            {
+                final int slot = areas.size();
+                areas.add(child);
+                positions.add(new Rectangular(pos));
+                slots.put(child, slot);
+                orders[slot] = slot * ORDER_GAP;
+                fill(pos, slot);
+            }
+        }
+        nextX = new int[cells.length];
+        prevX = new int[cells.length];
+        nextY = new int[cells.length];
+        rowStart = new boolean[cells.length];
+        colStart = new boolean[cells.length];
+        rowRuns = new int[cells.length];
+        colRuns = new int[cells.length];
+        updateSkipPointers(0, 0, width - 1, height - 1);
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Obtains the child area occupying the given cell.
+     * @param x the cell X coordinate
+     * @param y the cell Y coordinate
+     * @return the child area or {@code null} when the cell is empty or outside of the grid
+     */
+    public Area getAreaAt(int x, int y)
+    {
+        final int slot = getSlotAt(x, y);
+        return (slot == -1) ? null : areas.get(slot);
+    }
+
+    /**
+     * Obtains the slot number of the area occupying the given cell.
+     * @param x the cell X coordinate
+     * @param y the cell Y coordinate
+     * @return the slot number or -1 when the cell is empty or outside of the grid
+     */
+    public int getSlotAt(int x, int y)
+    {
+        if (x >= 0 && x < width && y >= 0 && y < height)
+            return cells[y * width + x];
+        else
+            return -1;
+    }
+
+    /**
+     * Obtains an indexed area by its slot number.
+     * @param slot the slot number as returned by {@link #getSlotAt(int, int)}
+     * @return the area
+     */
+    public Area getArea(int slot)
+    {
+        return areas.get(slot);
+    }
+
+    /**
+     * Finds the nearest occupied cell in the row {@code y} starting from {@code x} to the right.
+     * @return the X coordinate of the occupied cell or -1 when there is no such cell
+     */
+    public int nextOccupiedX(int x, int y)
+    {
+        if (x < 0) x = 0;
+        if (x < width && y >= 0 && y < height)
+            return nextX[y * width + x];
+        else
+            return -1;
+    }
+
+    /**
+     * Finds the nearest occupied cell in the row {@code y} starting from {@code x} to the left.
+     * @return the X coordinate of the occupied cell or -1 when there is no such cell
+     */
+    public int prevOccupiedX(int x, int y)
+    {
+        if (x >= width) x = width - 1;
+        if (x >= 0 && y >= 0 && y < height)
+            return prevX[y * width + x];
+        else
+            return -1;
+    }
+
+    /**
+     * Finds the nearest occupied cell in the column {@code x} starting from {@code y} down.
+     * @return the Y coordinate of the occupied cell or -1 when there is no such cell
+     */
+    public int nextOccupiedY(int x, int y)
+    {
+        if (y < 0) y = 0;
+        if (y < height && x >= 0 && x < width)
+            return nextY[y * width + x];
+        else
+            return -1;
+    }
+
+    /**
+     * Finds the leftmost column in the given range of rows that contains an occupied cell
+     * at {@code x} or further to the right.
+     * @return the X coordinate of the column or -1 when there is no such column
+     */
+    public int nextOccupiedColumn(int x, int y1, int y2)
+    {
+        int ret = -1;
+        for (int y = Math.max(y1, 0); y <= y2 && y < height; y++)
+        {
+            final int nx = nextOccupiedX(x, y);
+            if (nx != -1 && (ret == -1 || nx < ret))
+                ret = nx;
+        }
+        return ret;
+    }
+
+    /**
+     * Finds the rightmost column in the given range of rows that contains an occupied cell
+     * at {@code x} or further to the left.
+     * @return the X coordinate of the column or -1 when there is no such column
+     */
+    public int prevOccupiedColumn(int x, int y1, int y2)
+    {
+        int ret = -1;
+        for (int y = Math.max(y1, 0); y <= y2 && y < height; y++)
+        {
+            final int px = prevOccupiedX(x, y);
+            if (px > ret)
+                ret = px;
+        }
+        return ret;
+    }
+
+    /**
+     * Finds the topmost row in the given range of columns that contains an occupied cell
+     * at {@code y} or further down.
+     * @return the Y coordinate of the row or -1 when there is no such row
+     */
+    public int nextOccupiedRow(int x1, int x2, int y)
+    {
+        int ret = -1;
+        for (int x = Math.max(x1, 0); x <= x2 && x < width; x++)
+        {
+            final int ny = nextOccupiedY(x, y);
+            if (ny != -1 && (ret == -1 || ny < ret))
+                ret = ny;
+        }
+        return ret;
+    }
+
+    /**
+     * Counts the distinct areas occupying the given range of cells in a row. An area is counted
+     * once for each uninterrupted run of its cells in the range.
+     * @param y the row Y coordinate
+     * @param x1 the first column of the range
+     * @param x2 the last column of the range
+     * @return the number of areas
+     */
+    public int countAreasInRow(int y, int x1, int x2)
+    {
+        if (x1 < 0) x1 = 0;
+        if (x2 >= width) x2 = width - 1;
+        if (y < 0 || y >= height || x1 > x2)
+            return 0;
+        final int row = y * width;
+        return prefixSum(rowRuns, row, 1, x2) - prefixSum(rowRuns, row, 1, x1) + ((cells[row + x1] != -1) ? 1 : 0);
+    }
+
+    /**
+     * Counts the distinct areas occupying the given range of cells in a column. An area is counted
+     * once for each uninterrupted run of its cells in the range.
+     * @param x the column X coordinate
+     * @param y1 the first row of the range
+     * @param y2 the last row of the range
+     * @return the number of areas
+     */
+    public int countAreasInColumn(int x, int y1, int y2)
+    {
+        if (y1 < 0) y1 = 0;
+        if (y2 >= height) y2 = height - 1;
+        if (x < 0 || x >= width || y1 > y2)
+            return 0;
+        return prefixSum(colRuns, x, width, y2) - prefixSum(colRuns, x, width, y1) + ((cells[y1 * width + x] != -1) ? 1 : 0);
+    }
+
+    //=================================================================================
+
+    /**
+     * Removes an area from the index. This should be called when a child area is removed
+     * from the parent area without updating the topology.
+     * @param area the area to be removed
+     */
+    public void removeArea(Area area)
+    {
+        final Integer slot = slots.remove(area);
+        if (slot != null)
+        {
+            final Rectangular pos = positions.get(slot);
+            areas.set(slot, null);
+            positions.set(slot, null);
+            clear(pos, slot);
+            updateSkipPointers(pos.getX1(), pos.getY1(), pos.getX2(), pos.getY2());
+        }
+    }
+
+    /**
+     * Changes the grid position of an indexed area. The area is added to the index when
+     * it is not indexed yet.
+     * @param area the area to be updated
+     * @param pos the new grid position of the area
+     */
+    public void updateArea(Area area, Rectangular pos)
+    {
+        final Integer slot = slots.get(area);
+        if (slot != null)
+        {
+            final Rectangular old = positions.get(slot);
+            positions.set(slot, new Rectangular(pos));
+            clear(old, slot);
+            fill(pos, slot);
+            updateSkipPointers(old.getX1(), old.getY1(), old.getX2(), old.getY2());
+            updateSkipPointers(pos.getX1(), pos.getY1(), pos.getX2(), pos.getY2());
+        }
+        else
+            addArea(area, pos);
+    }
+
+    /**
+     * Adds a new area to the index. The area should be already inserted to the parent area;
+     * its priority in the overlapping cells corresponds to its position among the child areas.
+     * @param area the area to be added
+     * @param pos the grid position of the area
+     */
+    public void addArea(Area area, Rectangular pos)
+    {
+        final int slot = areas.size();
+        areas.add(area);
+        positions.add(new Rectangular(pos));
+        slots.put(area, slot);
+        if (slot >= orders.length)
+            orders = Arrays.copyOf(orders, orders.length * 2);
+        orders[slot] = createOrder(area);
+        fill(pos, slot);
+        updateSkipPointers(pos.getX1(), pos.getY1(), pos.getX2(), pos.getY2());
+    }
+
+    //=================================================================================
+
+    /**
+     * Computes the order of a new area between the orders of its nearest indexed siblings.
+     * @param area the new area
+     * @return the order
+     */
+    private long createOrder(Area area)
+    {
+        final int index = parent.getIndex(area);
+        int prev = -1;
+        int next = -1;
+        if (index != -1)
+        {
+            for (int i = index - 1; i >= 0 && prev == -1; i--)
+                prev = slotOf(parent.getChildAt(i));
+            for (int i = index + 1; i < parent.getChildCount() && next == -1; i++)
+                next = slotOf(parent.getChildAt(i));
+        }
+        else
+            prev = lastSlot(); //not a child area, use the lowest priority
+        
+        if (prev != -1 && next != -1 && orders[next] - orders[prev] < 2)
+            renumber();
+        if (prev != -1 && next != -1)
+            return orders[prev] + (orders[next] - orders[prev]) / 2;
+        else if (prev != -1)
+            return orders[prev] + ORDER_GAP;
+        else if (next != -1)
+            return orders[next] - ORDER_GAP;
+        else
+            return 0;
+    }
+    
+    private int slotOf(Area area)
+    {
+        final Integer slot = slots.get(area);
+        return (slot == null) ? -1 : slot;
+    }
+    
+    /**
+     * @return the indexed area with the highest order or -1 when there are no indexed areas
+     */
+    private int lastSlot()
+    {
+        int ret = -1;
+        for (int slot = 0; slot < areas.size(); slot++)
+        {
+            if (areas.get(slot) != null && (ret == -1 || orders[slot] > orders[ret]))
+                ret = slot;
+        }
+        return ret;
+    }
+    
+    /**
+     * Re-assigns the orders of the indexed areas with the initial gaps while preserving their order.
+     */
+    private void renumber()
+    {
+        //the orders are unique, the new order is the rank of the current one
+        final long[] sorted = new long[areas.size()];
+        int cnt = 0;
+        for (int slot = 0; slot < areas.size(); slot++)
+        {
+            if (areas.get(slot) != null)
+                sorted[cnt++] = orders[slot];
+        }
+        Arrays.sort(sorted, 0, cnt);
+        for (int slot = 0; slot < areas.size(); slot++)
+        {
+            if (areas.get(slot) != null)
+                orders[slot] = Arrays.binarySearch(sorted, 0, cnt, orders[slot]) * ORDER_GAP;
+        }
+    }
+    
+    /**
+     * Releases the cells of the given slot and assigns them to the remaining overlapping areas (if any).
+     */
+    private void clear(Rectangular pos, int slot)
+    {
+        final int x1 = Math.max(pos.getX1(), 0);
+        final int y1 = Math.max(pos.getY1(), 0);
+        final int x2 = Math.min(pos.getX2(), width - 1);
+        final int y2 = Math.min(pos.getY2(), height - 1);
+        for (int y = y1; y <= y2; y++)
+        {
+            final int row = y * width;
+            for (int x = x1; x <= x2; x++)
+            {
+                final int cell = row + x;
+                if (cells[cell] == slot)
+                    cells[cell] = removeFirst(cell);
+                else if (cells[cell] != -1)
+                    removeOverlap(cell, slot);
+            }
+        }
+    }
+
+    private void fill(Rectangular pos, int slot)
+    {
+        final int x1 = Math.max(pos.getX1(), 0);
+        final int y1 = Math.max(pos.getY1(), 0);
+        final int x2 = Math.min(pos.getX2(), width - 1);
+        final int y2 = Math.min(pos.getY2(), height - 1);
+        for (int y = y1; y <= y2; y++)
+        {
+            final int row = y * width;
+            for (int x = x1; x <= x2; x++)
+            {
+                final int cell = row + x;
+                final int cur = cells[cell];
+                if (cur == -1)
+                    cells[cell] = slot;
+                else if (orders[slot] < orders[cur]) //the first area wins
+                {
+                    addOverlap(cell, cur);
+                    cells[cell] = slot;
+                }
+                else
+                    addOverlap(cell, slot);
+            }
+        }
+    }
+    
+    //=================================================================================
+    
+    private void addOverlap(int cell, int slot)
+    {
+        int node;
+        if (freeNode != -1)
+        {
+            node = freeNode;
+            freeNode = nodeNext[node];
+        }
+        else
+        {
+            if (nodeCount == nodeSlot.length)
+            {
+                nodeSlot = Arrays.copyOf(nodeSlot, nodeCount * 2);
+                nodeNext = Arrays.copyOf(nodeNext, nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        nodeSlot[node] = slot;
+        nodeNext[node] = overlaps[cell];
+        overlaps[cell] = node;
+    }
+    
+    private void removeOverlap(int cell, int slot)
+    {
+        int prev = -1;
+        for (int node = overlaps[cell]; node != -1; node = nodeNext[node])
+        {
+            if (nodeSlot[node] == slot)
+            {
+                unlink(cell, prev, node);
+                return;
+            }
+            prev = node;
+        }
+    }
+    
+    /**
+     * Removes the slot with the lowest order from the overlaps of the cell.
+     * @return the removed slot or -1 when there are no overlapping areas
+     */
+    private int removeFirst(int cell)
+    {
+        int best = -1;
+        int bestPrev = -1;
+        int prev = -1;
+        for (int node = overlaps[cell]; node != -1; node = nodeNext[node])
+        {
+            if (best == -1 || orders[nodeSlot[node]] < orders[nodeSlot[best]])
+            {
+                best = node;
+                bestPrev = prev;
+            }
+            prev = node;
+        }
+        if (best == -1)
+            return -1;
+        final int ret = nodeSlot[best];
+        unlink(cell, bestPrev, best);
+        return ret;
+    }
+    
+    private void unlink(int cell, int prev, int node)
+    {
+        if (prev == -1)
+            overlaps[cell] = nodeNext[node];
+        else
+            nodeNext[prev] = nodeNext[node];
+        nodeNext[node] = freeNode;
+        freeNode = node;
+    }
+    
+    //=================================================================================
+    
+    /**
+     * Updates the skip pointers and the run counts after the cells in the given range have been changed.
+     * Only the changed cells and the empty cells pointing to them are updated.
+     */
+    private void updateSkipPointers(int x1, int y1, int x2, int y2)
+    {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, width - 1);
+        y2 = Math.min(y2, height - 1);
+        for (int y = y1; y <= y2; y++)
+        {
+            final int row = y * width;
+            int next = (x2 + 1 < width) ? nextX[row + x2 + 1] : -1;
+            for (int x = x2; x >= 0; x--)
+            {
+                if (cells[row + x] != -1)
+                {
+                    if (x < x1)
+                        break; //the cells on the left are not affected
+                    next = x;
+                }
+                nextX[row + x] = next;
+            }
+            int prev = (x1 > 0) ? prevX[row + x1 - 1] : -1;
+            for (int x = x1; x < width; x++)
+            {
+                if (cells[row + x] != -1)
+                {
+                    if (x > x2)
+                        break; //the cells on the right are not affected
+                    prev = x;
+                }
+                prevX[row + x] = prev;
+            }
+            for (int x = x1; x <= x2 + 1 && x < width; x++)
+            {
+                final int slot = cells[row + x];
+                final boolean start = slot != -1 && (x == 0 || cells[row + x - 1] != slot);
+                if (start != rowStart[row + x])
+                {
+                    rowStart[row + x] = start;
+                    add(rowRuns, row, 1, width, x, start ? 1 : -1);
+                }
+            }
+        }
+        for (int x = x1; x <= x2; x++)
+        {
+            int next = (y2 + 1 < height) ? nextY[(y2 + 1) * width + x] : -1;
+            for (int y = y2; y >= 0; y--)
+            {
+                if (cells[y * width + x] != -1)
+                {
+                    if (y < y1)
+                        break; //the cells above are not affected
+                    next = y;
+                }
+                nextY[y * width + x] = next;
+            }
+            for (int y = y1; y <= y2 + 1 && y < height; y++)
+            {
+                final int slot = cells[y * width + x];
+                final boolean start = slot != -1 && (y == 0 || cells[(y - 1) * width + x] != slot);
+                if (start != colStart[y * width + x])
+                {
+                    colStart[y * width + x] = start;
+                    add(colRuns, x, width, height, y, start ? 1 : -1);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds a value to an element of a Fenwick tree stored in the given array.
+     * @param tree the array containing the tree
+     * @param base the array index of the first tree element
+     * @param stride the distance between the tree elements in the array
+     * @param size the number of the tree elements
+     * @param index the element index
+     * @param delta the value to be added
+     */
+    private static void add(int[] tree, int base, int stride, int size, int index, int delta)
+    {
+        for (int i = index + 1; i <= size; i += i & -i)
+            tree[base + (i - 1) * stride] += delta;
+    }
+    
+    /**
+     * Computes the sum of the elements {@code 0..index} of a Fenwick tree stored in the given array.
+     */
+    private static int prefixSum(int[] tree, int base, int stride, int index)
+    {
+        int ret = 0;
+        for (int i = index + 1; i > 0; i -= i & -i)
+            ret += tree[base + (i - 1) * stride];
+        return ret;
+    }
+
+}
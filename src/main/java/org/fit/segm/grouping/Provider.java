@@ -6,8 +6,11 @@
 package org.fit.segm.grouping;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import org.fit.layout.api.AreaTreeOperator;
 import org.fit.layout.api.Parameter;
 import org.fit.layout.impl.BaseAreaTreeProvider;
 import org.fit.layout.impl.ParameterBoolean;
@@ -61,6 +64,25 @@ public class Provider extends BaseAreaTreeProvider
         return atree; 
     }
 
+    /**
+     * Segments a sequence of pages using the given executor. The source pages are read lazily
+     * and at most {@code maxPending} pages are processed or waiting for being consumed at the same time.
+     * The operators are shared by all the tasks, so they must not be re-configured while the batch
+     * is running.
+     * @param pages the source pages
+     * @param operators the operators applied on each created area tree (in the given order)
+     * @param executor the executor used for running the segmentation tasks
+     * @param maxPending the maximal number of pages being processed or waiting for being consumed
+     * @param ordered {@code true} for obtaining the results in the order of the source pages,
+     * {@code false} for obtaining the results as they are completed
+     * @return an iterator over the resulting area trees
+     */
+    public Iterator<AreaTree> createAreaTrees(Iterator<Page> pages, List<AreaTreeOperator> operators,
+            Executor executor, int maxPending, boolean ordered)
+    {
+        return new BatchSegmentation(this, operators, pages, executor, maxPending, ordered);
+    }
+
     @Override
     public List<Parameter> defineParams()
     {
@@ -5,9 +5,15 @@
  */
 package org.fit.segm.grouping;
 
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.fit.layout.impl.DefaultAreaTree;
 import org.fit.layout.model.Area;
@@ -26,9 +32,18 @@ import org.fit.layout.model.Tag;
  */
 public class SegmentationAreaTree extends DefaultAreaTree
 {
+    /** The minimal number of areas in a subtree for creating its grids as a separate task */
+    public static final int PARALLEL_GRIDS_THRESHOLD = 500;
+    
     /** Preserve the auxiliary areas that have no visual impact */
     private boolean preserveAuxAreas;
     
+    /** Create the grids of the large subtrees in parallel? */
+    private boolean parallelGrids;
+    
+    /** The way of maintaining the names of the joined areas */
+    private Config.AreaNameMode areaNameMode;
+    
     /**
      * Create a new tree of areas by the analysis of a box tree
      * @param srcpage the source box tree
@@ -39,6 +54,8 @@ public class SegmentationAreaTree extends DefaultAreaTree
     {
         super(srcpage);
         this.preserveAuxAreas = preserveAuxAreas;
+        this.parallelGrids = false;
+        this.areaNameMode = Config.AreaNameMode.LAZY;
         AreaImpl rootarea = new AreaImpl(0, 0, 0, 0);
         rootarea.setAreaTree(this);
         rootarea.setPage(srcpage);
@@ -51,22 +68,120 @@ public class SegmentationAreaTree extends DefaultAreaTree
      */
     public Area findBasicAreas()
     {
-        AreaImpl rootarea = new AreaImpl(0, 0, 0, 0);
+        final AreaImpl rootarea = new AreaImpl(0, 0, 0, 0);
         setRoot(rootarea);
         rootarea.setAreaTree(this);
         rootarea.setPage(page);
+        streamBasicAreas(new SubtreeListener() {
+            public void subtreeFinished(AreaImpl subtree, AreaImpl parent)
+            {
+                if (parent == null)
+                    rootarea.appendChild(subtree);
+                else
+                    parent.appendChild(subtree);
+            }
+        });
+        rootarea.updateTopologies();
+        return rootarea;
+    }
+    
+    /**
+     * Creates the basic areas in the streaming mode with the top-level granularity. Each top-level area
+     * (created for a child box of the page root) is passed to the listener with its complete subtree,
+     * so the peak memory is given by the largest top-level subtree.
+     * @param listener the listener that receives the finished top-level subtrees in the document order
+     * @see #streamBasicAreas(SubtreeListener, int)
+     */
+    public void streamBasicAreas(SubtreeListener listener)
+    {
+        streamBasicAreas(listener, 1);
+    }
+    
+    /**
+     * Creates the basic areas in the streaming mode. The areas are created for the visually separated
+     * boxes, so the area levels correspond to the nesting of the visually separated boxes; the top-level
+     * areas created for the child boxes of the page root have the level 1.
+     * <p>
+     * Every area at the given level is passed to the listener as soon as its subtree is complete and
+     * its grids have been computed. The areas above that level are passed to the listener after all
+     * their descendants; their grids are computed from the child areas the listener has added to them
+     * in the meantime. No area is added to its parent area or to this tree by this method, so the memory
+     * used by the finished subtrees may be released when the listener does not keep them; the peak
+     * memory is given by the largest subtree at the given level. The box tree is traversed iteratively,
+     * so the depth of the box tree is not limited by the stack size.
+     * @param listener the listener that receives the finished subtrees in the post-order
+     * @param depth the level of the areas that are passed to the listener with their complete subtrees
+     * (1 or more)
+     */
+    public void streamBasicAreas(SubtreeListener listener, int depth)
+    {
+        if (depth < 1)
+            throw new IllegalArgumentException("depth must be positive");
         for (int i = 0; i < page.getRoot().getChildCount(); i++)
         {
             Box cbox = page.getRoot().getChildAt(i);
-            Area sub = new AreaImpl(cbox);
+            AreaImpl sub = new AreaImpl(cbox);
             if (sub.getWidth() > 1 || sub.getHeight() > 1)
             {
-                findStandaloneAreas(page.getRoot().getChildAt(i), sub);
-                rootarea.appendChild(sub);
+                findStandaloneAreas(cbox, sub, depth, listener);
+                if (depth == 1)
+                    createGrids(sub);
+                else
+                    sub.updateTopologies();
+                listener.subtreeFinished(sub, null);
             }
         }
-        createGrids(rootarea);
-        return rootarea;
+    }
+    
+    public boolean isParallelGrids()
+    {
+        return parallelGrids;
+    }
+
+    /**
+     * Enables or disables the parallel grid construction. When enabled, the grids of the subtrees
+     * that contain at least {@link #PARALLEL_GRIDS_THRESHOLD} areas are created as fork/join tasks
+     * in the current fork/join pool or in the common pool. The parallel mode is disabled by default.
+     * @param parallelGrids {@code true} for enabling the parallel mode
+     */
+    public void setParallelGrids(boolean parallelGrids)
+    {
+        this.parallelGrids = parallelGrids;
+    }
+    
+    public Config.AreaNameMode getAreaNameMode()
+    {
+        return areaNameMode;
+    }
+
+    /**
+     * Sets the way of maintaining the names of the areas joined in this tree.
+     * The default mode is {@link Config.AreaNameMode#LAZY}.
+     * @param areaNameMode the name mode
+     */
+    public void setAreaNameMode(Config.AreaNameMode areaNameMode)
+    {
+        this.areaNameMode = areaNameMode;
+    }
+    
+    /**
+     * Creates an independent copy of this tree that may be used as a starting point for
+     * applying the operators with different parameters. The areas are copied; the boxes
+     * and the source page are shared with this tree. This is much cheaper than creating
+     * the tree again from the page.
+     * @return the new tree
+     */
+    public SegmentationAreaTree snapshot()
+    {
+        SegmentationAreaTree ret = new SegmentationAreaTree(page, preserveAuxAreas);
+        ret.setParallelGrids(parallelGrids);
+        ret.setAreaNameMode(areaNameMode);
+        AreaImpl rootarea = ((AreaImpl) getRoot()).copyTree();
+        rootarea.setAreaTree(ret);
+        rootarea.setPage(page);
+        ret.setRoot(rootarea);
+        ret.createGrids(rootarea);
+        return ret;
     }
     
     //=================================================================================
@@ -96,31 +211,56 @@ public class SegmentationAreaTree extends DefaultAreaTree
     /**
      * Goes through a box tree and tries to identify the boxes that form standalone
      * visual areas. From these boxes, new areas are created, which are added to the
-     * area tree. Other boxes are ignored.
+     * area tree. Other boxes are ignored. The tree is traversed using an explicit stack;
+     * each new area is added to its parent area when its subtree is complete. The new areas
+     * up to the streaming level are passed to the listener instead (see {@link #streamBasicAreas(SubtreeListener, int)}).
      * @param boxroot the root of the box tree
-     * @param arearoot the root node of the new area tree 
+     * @param arearoot the root node of the new area tree, a top-level area with the level 1
+     * @param streamLevel the level of the areas passed to the listener with their complete subtrees
+     * @param listener the listener that receives the new areas up to the streaming level
      */ 
-    private void findStandaloneAreas(Box boxroot, Area arearoot)
+    private void findStandaloneAreas(Box boxroot, AreaImpl arearoot, int streamLevel, SubtreeListener listener)
     {
-        if (boxroot.isVisible())
+        if (!boxroot.isVisible())
+            return;
+        Deque<Frame> stack = new ArrayDeque<Frame>();
+        stack.push(new Frame(boxroot, arearoot, null, 1));
+        while (!stack.isEmpty())
         {
-            for (int i = 0; i < boxroot.getChildCount(); i++)
+            Frame frame = stack.peek();
+            if (frame.index < frame.box.getChildCount())
+            {
+                Box child = frame.box.getChildAt(frame.index++);
+                if (child.isVisible())
+                {
+                    if (isVisuallySeparated(child))
+                    {
+                        AreaImpl newnode = new AreaImpl(child);
+                        if (newnode.getWidth() > 1 || newnode.getHeight() > 1)
+                            stack.push(new Frame(child, newnode, frame.area, frame.level + 1));
+                    }
+                    else
+                        stack.push(new Frame(child, frame.area, null, frame.level));
+                }
+            }
+            else
             {
-                Box child = boxroot.getChildAt(i);
-		        if (child.isVisible())
-		        {
-	                if (isVisuallySeparated(child))
-	                {
-	                    Area newnode = new AreaImpl(child);
-	                    if (newnode.getWidth() > 1 || newnode.getHeight() > 1)
-	                    {
-                            findStandaloneAreas(child, newnode);
-	                    	arearoot.appendChild(newnode);
-	                    }
-	                }
-	                else
-	                    findStandaloneAreas(child, arearoot);
-		        }
+                stack.pop();
+                if (frame.parent != null)
+                {
+                    if (frame.level < streamLevel)
+                    {
+                        frame.area.updateTopologies();
+                        listener.subtreeFinished(frame.area, frame.parent);
+                    }
+                    else if (frame.level == streamLevel)
+                    {
+                        createGrids(frame.area);
+                        listener.subtreeFinished(frame.area, frame.parent);
+                    }
+                    else
+                        frame.parent.appendChild(frame.area);
+                }
             }
         }
     }
@@ -132,16 +272,61 @@ public class SegmentationAreaTree extends DefaultAreaTree
     }
 
     /**
-     * Goes through all the areas in the tree and creates the grids in these areas
+     * Goes through all the areas in the tree and creates the grids in these areas.
+     * The grids of the individual areas are independent, so the tree is traversed
+     * in an arbitrary order and the large subtrees may be processed in parallel.
      * @param root the root node of the tree of areas
      */
     protected void createGrids(AreaImpl root)
     {
-        root.updateTopologies();
-        for (int i = 0; i < root.getChildCount(); i++)
-            createGrids((AreaImpl) root.getChildAt(i));
+        if (parallelGrids && root.getChildCount() > 1)
+        {
+            final GridTask task = new GridTask(root);
+            if (ForkJoinTask.inForkJoinPool())
+                task.invoke();
+            else
+                ForkJoinPool.commonPool().invoke(task);
+        }
+        else
+            createGridsSequentially(root);
+    }
+    
+    /**
+     * Creates the grids of the subtree in the current thread.
+     * @param root the subtree root
+     */
+    private static void createGridsSequentially(AreaImpl root)
+    {
+        Deque<AreaImpl> stack = new ArrayDeque<AreaImpl>();
+        stack.push(root);
+        while (!stack.isEmpty())
+        {
+            AreaImpl area = stack.pop();
+            area.updateTopologies();
+            for (int i = 0; i < area.getChildCount(); i++)
+                stack.push((AreaImpl) area.getChildAt(i));
+        }
     }
 
+    /**
+     * Checks whether the subtree contains at least the given number of areas. Only the first
+     * {@code min} areas are counted.
+     */
+    private static boolean hasMinSize(Area root, int min)
+    {
+        Deque<Area> stack = new ArrayDeque<Area>();
+        stack.push(root);
+        int cnt = 0;
+        while (!stack.isEmpty() && cnt < min)
+        {
+            Area area = stack.pop();
+            cnt++;
+            for (int i = 0; i < area.getChildCount(); i++)
+                stack.push(area.getChildAt(i));
+        }
+        return cnt >= min;
+    }
+    
     public boolean isVisuallySeparated(Box box)
     {
         //invisible boxes are not separated
@@ -187,6 +372,84 @@ public class SegmentationAreaTree extends DefaultAreaTree
 
     }
     
+    //=================================================================================
+    
+    /**
+     * A listener that receives the area subtrees created by {@link SegmentationAreaTree#streamBasicAreas(SubtreeListener, int)}.
+     */
+    public interface SubtreeListener
+    {
+        /**
+         * Called when a subtree is complete and its grids have been computed. The parent area
+         * itself is passed to the listener later, after all its child subtrees.
+         * @param subtree the root of the subtree
+         * @param parent the area the subtree belongs to or {@code null} for the top-level subtrees
+         */
+        public void subtreeFinished(AreaImpl subtree, AreaImpl parent);
+    }
+    
+    /**
+     * A task that creates the grids of a subtree. The grid of the subtree root is created first;
+     * then the large child subtrees are forked and the small ones are processed in the current thread.
+     */
+    private static class GridTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final AreaImpl root;
+        
+        public GridTask(AreaImpl root)
+        {
+            this.root = root;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            root.updateTopologies();
+            List<GridTask> tasks = new ArrayList<GridTask>();
+            for (int i = 0; i < root.getChildCount(); i++)
+            {
+                AreaImpl child = (AreaImpl) root.getChildAt(i);
+                if (hasMinSize(child, PARALLEL_GRIDS_THRESHOLD))
+                {
+                    GridTask task = new GridTask(child);
+                    task.fork();
+                    tasks.add(task);
+                }
+                else
+                    createGridsSequentially(child);
+            }
+            for (GridTask task : tasks)
+                task.join();
+        }
+    }
+    
+    /**
+     * A box being processed during the box tree traversal.
+     */
+    private static class Frame
+    {
+        /** The box whose child boxes are processed */
+        final Box box;
+        /** The area that receives the areas created from the child boxes */
+        final AreaImpl area;
+        /** The area that receives {@code area} when the box is finished or {@code null} */
+        final AreaImpl parent;
+        /** The level of {@code area} */
+        final int level;
+        /** The index of the next child box */
+        int index;
+        
+        Frame(Box box, AreaImpl area, AreaImpl parent, int level)
+        {
+            this.box = box;
+            this.area = area;
+            this.parent = parent;
+            this.level = level;
+            this.index = 0;
+        }
+    }
+    
     //=================================================================================
     // tagging
     //=================================================================================
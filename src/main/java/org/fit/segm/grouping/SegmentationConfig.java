@@ -0,0 +1,378 @@
+/**
+ * SegmentationConfig.java
+ *
+ * Created on 17. 10. 2026, 17:45:19 by agent
+ */
+package org.fit.segm.grouping;
+
+import org.fit.segm.grouping.Config.AreaNameMode;
+import org.fit.segm.grouping.Config.SeparatorAlgorithm;
+
+/**
+ * An immutable configuration of a {@link SegmentationEngine}. It contains the selection of the
+ * segmentation steps and their parameters. The instances are created using a {@link Builder}
+ * and they may be freely shared among threads.
+ *
+ * @author agent
+ */
+public final class SegmentationConfig
+{
+    /** The default configuration */
+    public static final SegmentationConfig DEFAULT = new Builder().build();
+
+    private final boolean preserveAuxAreas;
+    private final boolean findLines;
+    private final boolean multiLines;
+    private final boolean superAreas;
+    private final boolean collapseAreas;
+    private final boolean sortByPosition;
+    private final boolean useConsistentStyle;
+    private final float maxLineEmSpace;
+    private final int depthLimit;
+    private final boolean columnFirst;
+    private final SeparatorAlgorithm separatorAlgorithm;
+    private final boolean parallelSeparators;
+    private final AreaNameMode areaNameMode;
+    private final boolean parallel;
+    private final int parallelThreshold;
+    private final boolean fuseOperators;
+
+
+    private SegmentationConfig(Builder b)
+    {
+        preserveAuxAreas = b.preserveAuxAreas;
+        findLines = b.findLines;
+        multiLines = b.multiLines;
+        superAreas = b.superAreas;
+        collapseAreas = b.collapseAreas;
+        sortByPosition = b.sortByPosition;
+        useConsistentStyle = b.useConsistentStyle;
+        maxLineEmSpace = b.maxLineEmSpace;
+        depthLimit = b.depthLimit;
+        columnFirst = b.columnFirst;
+        separatorAlgorithm = b.separatorAlgorithm;
+        parallelSeparators = b.parallelSeparators;
+        areaNameMode = b.areaNameMode;
+        parallel = b.parallel;
+        parallelThreshold = b.parallelThreshold;
+        fuseOperators = b.fuseOperators;
+    }
+
+    /**
+     * Creates a builder initialized with the values of this configuration.
+     * @return the new builder
+     */
+    public Builder toBuilder()
+    {
+        return new Builder(this);
+    }
+
+    //==============================================================================
+
+    /**
+     * @return {@code true} when the auxiliary areas that have no visual impact are preserved
+     */
+    public boolean isPreserveAuxAreas()
+    {
+        return preserveAuxAreas;
+    }
+
+    /**
+     * @return {@code true} when the lines are detected
+     */
+    public boolean isFindLines()
+    {
+        return findLines;
+    }
+
+    /**
+     * @return {@code true} when the multi-line areas are detected
+     */
+    public boolean isMultiLines()
+    {
+        return multiLines;
+    }
+
+    /**
+     * @return {@code true} when the super areas are detected
+     */
+    public boolean isSuperAreas()
+    {
+        return superAreas;
+    }
+
+    /**
+     * @return {@code true} when the areas with a single leaf child are collapsed
+     */
+    public boolean isCollapseAreas()
+    {
+        return collapseAreas;
+    }
+
+    /**
+     * @return {@code true} when the child areas are finally sorted by their position
+     */
+    public boolean isSortByPosition()
+    {
+        return sortByPosition;
+    }
+
+    /**
+     * @return {@code true} when the lines should have a consistent visual style
+     */
+    public boolean isUseConsistentStyle()
+    {
+        return useConsistentStyle;
+    }
+
+    /**
+     * @return the maximal distance of two areas allowed within a single line (in 'em' units)
+     */
+    public float getMaxLineEmSpace()
+    {
+        return maxLineEmSpace;
+    }
+
+    /**
+     * @return the recursion depth limit while detecting the super areas
+     */
+    public int getDepthLimit()
+    {
+        return depthLimit;
+    }
+
+    /**
+     * @return {@code true} when the areas are sorted by columns first
+     */
+    public boolean isColumnFirst()
+    {
+        return columnFirst;
+    }
+
+    /**
+     * @return the separator detection algorithm
+     */
+    public SeparatorAlgorithm getSeparatorAlgorithm()
+    {
+        return separatorAlgorithm;
+    }
+
+    /**
+     * @return {@code true} when the separators of the larger areas are detected in parallel
+     */
+    public boolean isParallelSeparators()
+    {
+        return parallelSeparators;
+    }
+
+    /**
+     * @return the way of maintaining the names of the joined areas
+     */
+    public AreaNameMode getAreaNameMode()
+    {
+        return areaNameMode;
+    }
+
+    /**
+     * @return {@code true} when the grids and the operators process the large subtrees in parallel
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * @return the minimal number of areas in a subtree for processing it as a separate task
+     */
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /**
+     * @return {@code true} when the operators are fused into as few tree traversals as possible
+     */
+    public boolean isFuseOperators()
+    {
+        return fuseOperators;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SegmentationConfig[preserveAuxAreas=" + preserveAuxAreas
+                + ", findLines=" + findLines + ", multiLines=" + multiLines
+                + ", superAreas=" + superAreas + ", collapseAreas=" + collapseAreas
+                + ", sortByPosition=" + sortByPosition + ", useConsistentStyle=" + useConsistentStyle
+                + ", maxLineEmSpace=" + maxLineEmSpace + ", depthLimit=" + depthLimit
+                + ", columnFirst=" + columnFirst + ", separatorAlgorithm=" + separatorAlgorithm
+                + ", parallelSeparators=" + parallelSeparators + ", areaNameMode=" + areaNameMode
+                + ", parallel=" + parallel + ", parallelThreshold=" + parallelThreshold
+                + ", fuseOperators=" + fuseOperators + "]";
+    }
+
+    //==============================================================================
+
+    /**
+     * A builder of the segmentation configurations. Unlike the configuration, the builder
+     * is not thread-safe.
+     */
+    public static class Builder
+    {
+        private boolean preserveAuxAreas = false;
+        private boolean findLines = true;
+        private boolean multiLines = true;
+        private boolean superAreas = true;
+        private boolean collapseAreas = true;
+        private boolean sortByPosition = true;
+        private boolean useConsistentStyle = Config.CONSISTENT_LINE_STYLE;
+        private float maxLineEmSpace = Config.MAX_LINE_EM_SPACE;
+        private int depthLimit = 2;
+        private boolean columnFirst = false;
+        private SeparatorAlgorithm separatorAlgorithm = SeparatorAlgorithm.HVS;
+        private boolean parallelSeparators = false;
+        private AreaNameMode areaNameMode = AreaNameMode.LAZY;
+        private boolean parallel = false;
+        private int parallelThreshold = 500;
+        private boolean fuseOperators = false;
+
+        /**
+         * Creates a builder with the default values.
+         */
+        public Builder()
+        {
+        }
+
+        private Builder(SegmentationConfig src)
+        {
+            preserveAuxAreas = src.preserveAuxAreas;
+            findLines = src.findLines;
+            multiLines = src.multiLines;
+            superAreas = src.superAreas;
+            collapseAreas = src.collapseAreas;
+            sortByPosition = src.sortByPosition;
+            useConsistentStyle = src.useConsistentStyle;
+            maxLineEmSpace = src.maxLineEmSpace;
+            depthLimit = src.depthLimit;
+            columnFirst = src.columnFirst;
+            separatorAlgorithm = src.separatorAlgorithm;
+            parallelSeparators = src.parallelSeparators;
+            areaNameMode = src.areaNameMode;
+            parallel = src.parallel;
+            parallelThreshold = src.parallelThreshold;
+            fuseOperators = src.fuseOperators;
+        }
+
+        public Builder preserveAuxAreas(boolean preserveAuxAreas)
+        {
+            this.preserveAuxAreas = preserveAuxAreas;
+            return this;
+        }
+
+        public Builder findLines(boolean findLines)
+        {
+            this.findLines = findLines;
+            return this;
+        }
+
+        public Builder multiLines(boolean multiLines)
+        {
+            this.multiLines = multiLines;
+            return this;
+        }
+
+        public Builder superAreas(boolean superAreas)
+        {
+            this.superAreas = superAreas;
+            return this;
+        }
+
+        public Builder collapseAreas(boolean collapseAreas)
+        {
+            this.collapseAreas = collapseAreas;
+            return this;
+        }
+
+        public Builder sortByPosition(boolean sortByPosition)
+        {
+            this.sortByPosition = sortByPosition;
+            return this;
+        }
+
+        public Builder useConsistentStyle(boolean useConsistentStyle)
+        {
+            this.useConsistentStyle = useConsistentStyle;
+            return this;
+        }
+
+        public Builder maxLineEmSpace(float maxLineEmSpace)
+        {
+            this.maxLineEmSpace = maxLineEmSpace;
+            return this;
+        }
+
+        public Builder depthLimit(int depthLimit)
+        {
+            this.depthLimit = depthLimit;
+            return this;
+        }
+
+        public Builder columnFirst(boolean columnFirst)
+        {
+            this.columnFirst = columnFirst;
+            return this;
+        }
+
+        public Builder separatorAlgorithm(SeparatorAlgorithm separatorAlgorithm)
+        {
+            if (separatorAlgorithm == null)
+                throw new IllegalArgumentException("separatorAlgorithm must not be null");
+            this.separatorAlgorithm = separatorAlgorithm;
+            return this;
+        }
+
+        public Builder parallelSeparators(boolean parallelSeparators)
+        {
+            this.parallelSeparators = parallelSeparators;
+            return this;
+        }
+
+        public Builder areaNameMode(AreaNameMode areaNameMode)
+        {
+            if (areaNameMode == null)
+                throw new IllegalArgumentException("areaNameMode must not be null");
+            this.areaNameMode = areaNameMode;
+            return this;
+        }
+
+        public Builder parallel(boolean parallel)
+        {
+            this.parallel = parallel;
+            return this;
+        }
+
+        public Builder parallelThreshold(int parallelThreshold)
+        {
+            if (parallelThreshold < 1)
+                throw new IllegalArgumentException("parallelThreshold must be positive");
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        public Builder fuseOperators(boolean fuseOperators)
+        {
+            this.fuseOperators = fuseOperators;
+            return this;
+        }
+
+        /**
+         * Creates the configuration using the current values of the builder.
+         * @return the new configuration
+         */
+        public SegmentationConfig build()
+        {
+            return new SegmentationConfig(this);
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * SegmentationEngine.java
+ *
+ * Created on 17. 10. 2026, 17:45:19 by agent
+ */
+package org.fit.segm.grouping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fit.layout.api.AreaTreeOperator;
+import org.fit.layout.model.Page;
+import org.fit.segm.grouping.op.CollapseAreasOperator;
+import org.fit.segm.grouping.op.FindLineOperator;
+import org.fit.segm.grouping.op.MultiLineOperator;
+import org.fit.segm.grouping.op.OperatorPipeline;
+import org.fit.segm.grouping.op.SortByPositionOperator;
+import org.fit.segm.grouping.op.SubtreeOperator;
+import org.fit.segm.grouping.op.SuperAreaOperator;
+
+/**
+ * A thread-safe segmentation engine. The engine holds an immutable {@link SegmentationConfig}
+ * and creates new operator instances for each page, so that a single engine may be used for
+ * segmenting any number of pages concurrently without locking (e.g. from virtual threads).
+ * <p>
+ * The engine does not use any global settings from {@link Config}; all the settings are taken
+ * from the engine configuration and passed to the created tree and operators. In the parallel mode,
+ * the tasks run in the current fork/join pool or in the common pool.
+ *
+ * @author agent
+ */
+public final class SegmentationEngine
+{
+    private final SegmentationConfig config;
+
+
+    /**
+     * Creates an engine with the default configuration.
+     */
+    public SegmentationEngine()
+    {
+        this(SegmentationConfig.DEFAULT);
+    }
+
+    /**
+     * Creates an engine with the given configuration.
+     * @param config the configuration to be used
+     */
+    public SegmentationEngine(SegmentationConfig config)
+    {
+        if (config == null)
+            throw new IllegalArgumentException("config must not be null");
+        this.config = config;
+    }
+
+    public SegmentationConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * Creates the area tree for the given page and applies the configured segmentation steps.
+     * The page must not be modified during the segmentation; the resulting tree is confined to
+     * the calling thread until it is published by the caller.
+     * @param page the source page
+     * @return the resulting area tree
+     */
+    public SegmentationAreaTree segment(Page page)
+    {
+        SegmentationAreaTree atree = new SegmentationAreaTree(page, config.isPreserveAuxAreas());
+        atree.setParallelGrids(config.isParallel());
+        atree.setAreaNameMode(config.getAreaNameMode());
+        atree.findBasicAreas();
+        if (config.isFuseOperators())
+            new OperatorPipeline(createOperators()).apply(atree);
+        else
+        {
+            for (AreaTreeOperator op : createOperators())
+                op.apply(atree);
+        }
+        return atree;
+    }
+
+    /**
+     * Creates new instances of the operators that correspond to the configured segmentation steps.
+     * The returned operators are not shared with any other caller.
+     * @return the list of operators in the order of application
+     */
+    public List<AreaTreeOperator> createOperators()
+    {
+        List<AreaTreeOperator> ret = new ArrayList<AreaTreeOperator>(5);
+        if (config.isFindLines())
+            ret.add(configure(new FindLineOperator(config.isUseConsistentStyle(), config.getMaxLineEmSpace())));
+        if (config.isMultiLines())
+            ret.add(configure(new MultiLineOperator(config.isUseConsistentStyle(), config.getMaxLineEmSpace())));
+        if (config.isSuperAreas())
+        {
+            SuperAreaOperator op = new SuperAreaOperator(config.getDepthLimit());
+            op.setSeparatorAlgorithm(config.getSeparatorAlgorithm());
+            op.setParallelSeparators(config.isParallelSeparators());
+            ret.add(configure(op));
+        }
+        if (config.isCollapseAreas())
+            ret.add(configure(new CollapseAreasOperator()));
+        if (config.isSortByPosition())
+            ret.add(configure(new SortByPositionOperator(config.isColumnFirst())));
+        return ret;
+    }
+
+    private SubtreeOperator configure(SubtreeOperator op)
+    {
+        op.setParallel(config.isParallel());
+        op.setParallelThreshold(config.getParallelThreshold());
+        return op;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SegmentationEngine[" + config + "]";
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * StyleStatistics.java
+ *
+ * Created on 17. 10. 2026, 17:42:09 by agent
+ */
+package org.fit.segm.grouping;
+
+/**
+ * Accumulated font style statistics of an area used for computing the average style values.
+ * All the values are weighted by the text length, so a single text length counter is shared
+ * by all the sums.
+ *
+ * @author agent
+ */
+public final class StyleStatistics
+{
+    private int textLength;
+    private float fontSizeSum;
+    private float fontWeightSum;
+    private float fontStyleSum;
+
+
+    /**
+     * Creates empty statistics.
+     */
+    public StyleStatistics()
+    {
+    }
+
+    /**
+     * Creates a copy of other statistics.
+     * @param src the source statistics
+     */
+    public StyleStatistics(StyleStatistics src)
+    {
+        set(src);
+    }
+
+    /**
+     * Replaces the current values with the values of other statistics.
+     * @param src the source statistics
+     */
+    public void set(StyleStatistics src)
+    {
+        textLength = src.textLength;
+        fontSizeSum = src.fontSizeSum;
+        fontWeightSum = src.fontWeightSum;
+        fontStyleSum = src.fontStyleSum;
+    }
+
+    /**
+     * Discards all the accumulated values.
+     */
+    public void reset()
+    {
+        textLength = 0;
+        fontSizeSum = 0;
+        fontWeightSum = 0;
+        fontStyleSum = 0;
+    }
+
+    /**
+     * Adds the values of other statistics to these statistics.
+     * @param other the statistics to be added
+     */
+    public void add(StyleStatistics other)
+    {
+        textLength += other.textLength;
+        fontSizeSum += other.fontSizeSum;
+        fontWeightSum += other.fontWeightSum;
+        fontStyleSum += other.fontStyleSum;
+    }
+
+    /**
+     * Adds a text run with the given length-weighted font sums.
+     * @param len the text length
+     * @param fontSizeSum the font size multiplied by the text length
+     * @param fontWeightSum the font weight multiplied by the text length
+     * @param fontStyleSum the font style multiplied by the text length
+     */
+    public void addText(int len, float fontSizeSum, float fontWeightSum, float fontStyleSum)
+    {
+        if (len < 0)
+            throw new IllegalArgumentException("Negative text length: " + len);
+        textLength += len;
+        this.fontSizeSum += fontSizeSum;
+        this.fontWeightSum += fontWeightSum;
+        this.fontStyleSum += fontStyleSum;
+    }
+
+    //==============================================================================
+
+    public int getTextLength()
+    {
+        return textLength;
+    }
+
+    public float getAverageFontSize()
+    {
+        return average(fontSizeSum);
+    }
+
+    public float getAverageFontWeight()
+    {
+        return average(fontWeightSum);
+    }
+
+    public float getAverageFontStyle()
+    {
+        return average(fontStyleSum);
+    }
+
+    private float average(float sum)
+    {
+        if (textLength == 0)
+            return 0;
+        else
+            return sum / textLength;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "{" + getAverageFontSize() + "=" + fontSizeSum + "/" + textLength + "}";
+    }
+
+}
@@ -0,0 +1,434 @@
+/**
+ * PageGenerator.java
+ *
+ * Created on 17. 10. 2026, 17:38:08 by agent
+ */
+package org.fit.segm.grouping.gen;
+
+import java.awt.Color;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Random;
+
+import org.fit.layout.impl.DefaultBox;
+import org.fit.layout.impl.DefaultPage;
+import org.fit.layout.model.Border;
+import org.fit.layout.model.Box.DisplayType;
+import org.fit.layout.model.Box.Type;
+import org.fit.layout.model.Page;
+import org.fit.layout.model.Rectangular;
+
+/**
+ * Generates synthetic pages for load and scaling tests. The generated page consists of a number
+ * of columns; each column contains nested sections up to the given depth and the innermost sections
+ * contain text paragraphs, tables or images. The borders and background colors are assigned
+ * randomly to the sections and table cells. The generator is deterministic for a given seed.
+ * <p>
+ * The total number of generated boxes (including the container boxes) is approximately
+ * {@code boxCount}; the generation stops once the limit is reached.
+ *
+ * @author agent
+ */
+public class PageGenerator
+{
+    private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur",
+        "adipiscing", "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et"};
+
+    private static final int COLUMN_GAP = 20;
+    private static final int PADDING = 4;
+    private static final int CHAR_WIDTH = 7;
+    private static final int WORD_GAP = 5;
+    private static final int LINE_HEIGHT = 16;
+    private static final float FONT_SIZE = 12.0f;
+
+    /** The approximate total number of boxes */
+    private int boxCount;
+    /** The nesting depth of the sections in each column */
+    private int depth;
+    /** The number of page columns */
+    private int columns;
+    /** The probability of creating a table instead of a paragraph */
+    private float tableRatio;
+    /** The probability of creating an image instead of a paragraph or a table */
+    private float imageRatio;
+    /** The portion of the line width filled with words (0..1) */
+    private float textDensity;
+    /** The probability of a border around a section or a table cell */
+    private float borderRatio;
+    /** The probability of a background color of a section or a table cell */
+    private float backgroundRatio;
+    /** The page width in pixels */
+    private int pageWidth;
+    /** The random generator seed */
+    private long seed;
+
+    private Random rand;
+    private DefaultPage page;
+    private int remain;
+
+
+    /**
+     * Creates a generator with the default settings.
+     */
+    public PageGenerator()
+    {
+        boxCount = 1000;
+        depth = 2;
+        columns = 1;
+        tableRatio = 0.1f;
+        imageRatio = 0.0f;
+        textDensity = 0.8f;
+        borderRatio = 0.1f;
+        backgroundRatio = 0.1f;
+        pageWidth = 1200;
+        seed = 1;
+    }
+
+    /**
+     * Creates a generator for the given page size and layout.
+     * @param boxCount the approximate total number of boxes
+     * @param columns the number of page columns
+     */
+    public PageGenerator(int boxCount, int columns)
+    {
+        this();
+        this.boxCount = boxCount;
+        this.columns = columns;
+    }
+
+    public int getBoxCount()
+    {
+        return boxCount;
+    }
+
+    public void setBoxCount(int boxCount)
+    {
+        this.boxCount = boxCount;
+    }
+
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    public void setDepth(int depth)
+    {
+        this.depth = depth;
+    }
+
+    public int getColumns()
+    {
+        return columns;
+    }
+
+    public void setColumns(int columns)
+    {
+        this.columns = columns;
+    }
+
+    public float getTableRatio()
+    {
+        return tableRatio;
+    }
+
+    public void setTableRatio(float tableRatio)
+    {
+        this.tableRatio = tableRatio;
+    }
+
+    public float getImageRatio()
+    {
+        return imageRatio;
+    }
+
+    /**
+     * Sets the probability of creating an image instead of a paragraph or a table. The images
+     * are the replaced boxes with no text. No images are created by default.
+     * @param imageRatio the probability (0..1)
+     */
+    public void setImageRatio(float imageRatio)
+    {
+        this.imageRatio = imageRatio;
+    }
+
+    public float getTextDensity()
+    {
+        return textDensity;
+    }
+
+    public void setTextDensity(float textDensity)
+    {
+        this.textDensity = textDensity;
+    }
+
+    public float getBorderRatio()
+    {
+        return borderRatio;
+    }
+
+    public void setBorderRatio(float borderRatio)
+    {
+        this.borderRatio = borderRatio;
+    }
+
+    public float getBackgroundRatio()
+    {
+        return backgroundRatio;
+    }
+
+    public void setBackgroundRatio(float backgroundRatio)
+    {
+        this.backgroundRatio = backgroundRatio;
+    }
+
+    public int getPageWidth()
+    {
+        return pageWidth;
+    }
+
+    public void setPageWidth(int pageWidth)
+    {
+        this.pageWidth = pageWidth;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    //==============================================================================
+
+    /**
+     * Generates a new page using the current settings.
+     * @return the generated page
+     */
+    public Page generate()
+    {
+        rand = new Random(seed);
+        try {
+            page = new DefaultPage(new URL("http://localhost/generated/" + boxCount));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        DefaultBox root = createBlock("body");
+        final int cols = Math.max(columns, 1);
+        final int colWidth = Math.max((pageWidth - (cols + 1) * COLUMN_GAP) / cols, 8 * CHAR_WIDTH);
+        //the box budget (except the root box) is split among the columns
+        final int total = boxCount - 1;
+        int maxY = COLUMN_GAP;
+        int x = COLUMN_GAP;
+        for (int c = 0; c < cols; c++)
+        {
+            remain = total / cols + ((c < total % cols) ? 1 : 0);
+            DefaultBox col = createBlock("div");
+            remain--;
+            int y = COLUMN_GAP;
+            while (remain > 0)
+                y = generateSection(col, 1, x, y, colWidth) + LINE_HEIGHT;
+            setBounds(col, x, COLUMN_GAP, x + colWidth - 1, Math.max(y, COLUMN_GAP + 1) - 1);
+            root.appendChild(col);
+            maxY = Math.max(maxY, y);
+            x += colWidth + COLUMN_GAP;
+        }
+        setBounds(root, 0, 0, pageWidth - 1, maxY + COLUMN_GAP - 1);
+        page.setRoot(root);
+        page.setWidth(pageWidth);
+        page.setHeight(maxY + COLUMN_GAP);
+        DefaultPage ret = page;
+        page = null;
+        return ret;
+    }
+
+    //==============================================================================
+
+    /**
+     * Generates a section and appends it to the parent box.
+     * @return the Y coordinate below the generated section
+     */
+    private int generateSection(DefaultBox parent, int level, int x, int y, int width)
+    {
+        if (level >= depth || width < 16 * CHAR_WIDTH)
+        {
+            if (imageRatio > 0.0f && rand.nextFloat() < imageRatio)
+                return generateImage(parent, x, y, width);
+            else if (rand.nextFloat() < tableRatio)
+                return generateTable(parent, x, y, width);
+            else
+                return generateParagraph(parent, x, y, width);
+        }
+        else
+        {
+            DefaultBox sec = createBlock("div");
+            remain--;
+            decorate(sec);
+            final int cx = x + PADDING;
+            final int cw = width - 2 * PADDING;
+            int cy = y + PADDING;
+            final int cnt = 2 + rand.nextInt(3);
+            for (int i = 0; i < cnt && remain > 0; i++)
+                cy = generateSection(sec, level + 1, cx, cy, cw) + PADDING;
+            setBounds(sec, x, y, x + width - 1, cy - 1);
+            parent.appendChild(sec);
+            return cy;
+        }
+    }
+
+    /**
+     * Generates a paragraph of text lines.
+     * @return the Y coordinate below the generated paragraph
+     */
+    private int generateParagraph(DefaultBox parent, int x, int y, int width)
+    {
+        DefaultBox par = createBlock("p");
+        remain--;
+        final int lines = 1 + rand.nextInt(6);
+        int cy = y;
+        for (int l = 0; l < lines && remain > 0; l++)
+        {
+            generateLine(par, x, cy, width);
+            cy += LINE_HEIGHT;
+        }
+        setBounds(par, x, y, x + width - 1, Math.max(cy, y + 1) - 1);
+        parent.appendChild(par);
+        return cy;
+    }
+
+    /**
+     * Generates an image with a random size.
+     * @return the Y coordinate below the generated image
+     */
+    private int generateImage(DefaultBox parent, int x, int y, int width)
+    {
+        DefaultBox img = createBlock("img");
+        img.setType(Type.REPLACED_CONTENT);
+        img.setDisplayType(DisplayType.INLINE);
+        remain--;
+        final int w = Math.max(width / (1 + rand.nextInt(4)), 1);
+        final int h = 2 * LINE_HEIGHT + rand.nextInt(8 * LINE_HEIGHT);
+        setBounds(img, x, y, x + w - 1, y + h - 1);
+        parent.appendChild(img);
+        return y + h;
+    }
+
+    /**
+     * Generates a table with text in the cells.
+     * @return the Y coordinate below the generated table
+     */
+    private int generateTable(DefaultBox parent, int x, int y, int width)
+    {
+        DefaultBox table = createBlock("table");
+        table.setDisplayType(DisplayType.TABLE);
+        remain--;
+        final int cols = 2 + rand.nextInt(4);
+        final int rows = 2 + rand.nextInt(8);
+        final int cellWidth = width / cols;
+        int cy = y;
+        for (int r = 0; r < rows && remain > 0; r++)
+        {
+            DefaultBox row = createBlock("tr");
+            row.setDisplayType(DisplayType.TABLE_ROW);
+            remain--;
+            final int rowHeight = LINE_HEIGHT + 2 * PADDING;
+            for (int c = 0; c < cols && remain > 0; c++)
+            {
+                final int cx = x + c * cellWidth;
+                DefaultBox cell = createBlock("td");
+                cell.setDisplayType(DisplayType.TABLE_CELL);
+                remain--;
+                decorate(cell);
+                generateLine(cell, cx + PADDING, cy + PADDING, cellWidth - 2 * PADDING);
+                setBounds(cell, cx, cy, cx + cellWidth - 1, cy + rowHeight - 1);
+                row.appendChild(cell);
+            }
+            setBounds(row, x, cy, x + cols * cellWidth - 1, cy + rowHeight - 1);
+            table.appendChild(row);
+            cy += rowHeight;
+        }
+        setBounds(table, x, y, x + cols * cellWidth - 1, Math.max(cy, y + 1) - 1);
+        parent.appendChild(table);
+        return cy;
+    }
+
+    /**
+     * Generates the text boxes of a single line of text. The line is filled with words
+     * up to the configured text density.
+     */
+    private void generateLine(DefaultBox parent, int x, int y, int width)
+    {
+        final int limit = x + Math.max((int) (width * textDensity), CHAR_WIDTH);
+        int cx = x;
+        boolean first = true;
+        while (remain > 0)
+        {
+            final String word = WORDS[rand.nextInt(WORDS.length)];
+            final int ww = word.length() * CHAR_WIDTH;
+            if (!first && cx + ww > limit)
+                break;
+            parent.appendChild(createText(word, cx, y, cx + ww - 1, y + LINE_HEIGHT - 1));
+            remain--;
+            cx += ww + WORD_GAP;
+            first = false;
+        }
+    }
+
+    /**
+     * Randomly assigns a border and a background color to a box.
+     */
+    private void decorate(DefaultBox box)
+    {
+        if (rand.nextFloat() < borderRatio)
+        {
+            final Border border = new Border(1, Border.Style.SOLID, Color.GRAY);
+            for (Border.Side side : Border.Side.values())
+                box.setBorderStyle(side, border);
+        }
+        if (rand.nextFloat() < backgroundRatio)
+        {
+            box.setBackgroundColor(new Color(200 + rand.nextInt(56), 200 + rand.nextInt(56), 200 + rand.nextInt(56)));
+            box.setBackgroundSeparated(true);
+        }
+    }
+
+    //==============================================================================
+
+    private DefaultBox createBlock(String tagName)
+    {
+        DefaultBox box = new DefaultBox();
+        box.setPage(page);
+        box.setTagName(tagName);
+        box.setType(Type.ELEMENT);
+        box.setDisplayType(DisplayType.BLOCK);
+        box.setVisible(true);
+        box.setColor(Color.BLACK);
+        box.setFontFamily("serif");
+        box.setFontSize(FONT_SIZE);
+        return box;
+    }
+
+    private DefaultBox createText(String text, int x1, int y1, int x2, int y2)
+    {
+        DefaultBox box = new DefaultBox();
+        box.setPage(page);
+        box.setType(Type.TEXT_CONTENT);
+        box.setDisplayType(DisplayType.INLINE);
+        box.setText(text);
+        box.setVisible(true);
+        box.setColor(Color.BLACK);
+        box.setFontFamily("serif");
+        box.setFontSize(FONT_SIZE);
+        setBounds(box, x1, y1, x2, y2);
+        return box;
+    }
+
+    private void setBounds(DefaultBox box, int x1, int y1, int x2, int y2)
+    {
+        box.setBounds(new Rectangular(x1, y1, x2, y2));
+        box.setVisualBounds(new Rectangular(x1, y1, x2, y2));
+    }
+
+}
@@ -5,7 +5,6 @@
  */
 package org.fit.segm.grouping.op;
 
-import org.fit.layout.impl.BaseOperator;
 import org.fit.layout.model.Area;
 import org.fit.layout.model.AreaTree;
 import org.fit.segm.grouping.AreaImpl;
@@ -15,7 +14,7 @@ import org.fit.segm.grouping.AreaImpl;
  * 
  * @author burgetr
  */
-public class CollapseAreasOperator extends BaseOperator
+public class CollapseAreasOperator extends FusableOperator
 {
     
     public CollapseAreasOperator()
@@ -64,17 +63,44 @@ public class CollapseAreasOperator extends BaseOperator
 
     private void recursiveCollapseAreas(AreaImpl root)
     {
-        if (canCollapse(root))
+        if (!collapse(root))
+            processChildSubtrees(root);
+    }
+    
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursiveCollapseAreas((AreaImpl) root);
+    }
+    
+    @Override
+    public Traversal getTraversal()
+    {
+        return Traversal.PRE_ORDER;
+    }
+    
+    @Override
+    protected void processNode(Area node)
+    {
+        collapse((AreaImpl) node);
+    }
+    
+    /**
+     * Collapses the area when it has only one leaf child.
+     * @param area the area to be processed
+     * @return {@code true} when the area has been collapsed (so that it has no child areas now)
+     */
+    private boolean collapse(AreaImpl area)
+    {
+        if (canCollapse(area))
         {
-            //System.out.println("Collapsing: " + root);
-            recursiveCollapseSubtree(root, root);
-            root.removeAllChildren();
+            //System.out.println("Collapsing: " + area);
+            recursiveCollapseSubtree(area, area);
+            area.removeAllChildren();
+            return true;
         }
         else
-        {
-            for (int i = 0; i < root.getChildCount(); i++)
-                recursiveCollapseAreas((AreaImpl) root.getChildAt(i));
-        }
+            return false;
     }
     
     private boolean canCollapse(AreaImpl area)
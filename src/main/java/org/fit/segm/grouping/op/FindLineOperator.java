@@ -9,7 +9,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.fit.layout.api.Parameter;
-import org.fit.layout.impl.BaseOperator;
 import org.fit.layout.impl.ParameterBoolean;
 import org.fit.layout.impl.ParameterFloat;
 import org.fit.layout.model.Area;
@@ -17,6 +16,7 @@ import org.fit.layout.model.AreaTopology;
 import org.fit.layout.model.AreaTree;
 import org.fit.layout.model.Rectangular;
 import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.OccupancyGrid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,7 +25,7 @@ import org.slf4j.LoggerFactory;
  * is the smallest visual area. 
  * @author burgetr
  */
-public class FindLineOperator extends BaseOperator
+public class FindLineOperator extends FusableOperator
 {
     private static Logger log = LoggerFactory.getLogger(FindLineOperator.class);
     
@@ -78,6 +78,7 @@ public class FindLineOperator extends BaseOperator
         List<Parameter> ret = new ArrayList<>();
         ret.add(new ParameterBoolean("useConsistentStyle"));
         ret.add(new ParameterFloat("maxLineEmSpace"));
+        ret.addAll(super.defineParams());
         return ret;
     }
 
@@ -125,88 +126,110 @@ public class FindLineOperator extends BaseOperator
     protected void recursiveJoinAreas(AreaImpl root)
     {
         joinAreas(root);
-        for (int i = 0; i < root.getChildCount(); i++)
-            recursiveJoinAreas((AreaImpl) root.getChildAt(i));
+        processChildSubtrees(root);
+    }
+    
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursiveJoinAreas((AreaImpl) root);
+    }
+    
+    @Override
+    public Traversal getTraversal()
+    {
+        return Traversal.PRE_ORDER;
+    }
+    
+    @Override
+    protected void processNode(Area node)
+    {
+        joinAreas((AreaImpl) node);
     }
     
     /**
      * Goes through the grid of areas and joins the adjacent visual areas that are not
-     * separated by anything
+     * separated by anything. The child areas are processed in their order; after a join,
+     * the joined area and the preceding areas that examined a part of the grid changed
+     * by the join are evaluated again (see {@link JoinWorklist}). This gives the same result
+     * as repeating the whole scan after each join.
      */
     protected void joinAreas(AreaImpl a)
     {
         //TODO: detekce radku by asi mela brat v uvahu separatory
         AreaTopology t = a.getTopology();
+        JoinWorklist work = new JoinWorklist(a, true);
         
-        boolean change = true;
-        while (change)
+        for (AreaImpl node = work.next(); node != null; node = work.next())
         {
-            change = false;
-            for (int i = 0; i < a.getChildCount(); i++)
+            Rectangular pos = t.getPosition(node);
+            int nx1 = pos.getX1();
+            int ny1 = pos.getY1();
+            int nx2 = pos.getX2();
+            int ny2 = pos.getY2();
+            int maxx = Math.max(nx2 + 1, t.getTopologyWidth() - 1);
+            
+            //try to expand to the right - find the nearest neighbor
+            final OccupancyGrid g = a.getOccupancyGrid();
+            final int nx = g.nextOccupiedColumn(nx2 + 1, ny1, ny2);
+            if (nx != -1)
             {
-                AreaImpl node = (AreaImpl) a.getChildAt(i);
-                Rectangular pos = t.getPosition(node);
-                int ny1 = pos.getY1();
-                int nx2 = pos.getX2();
-                int ny2 = pos.getY2();
-                
-                //try to expand to the right - find a neighbor
                 AreaImpl neigh = null;
-                int dist = 1;
-                while (neigh == null && nx2 + dist < t.getTopologyWidth())
+                for (int y = ny1; neigh == null && y <= ny2; y++)
+                    neigh = (AreaImpl) g.getAreaAt(nx, y);
+                //the alignment checks the rows of both areas to the right from their start
+                Rectangular npos = t.getPosition(neigh);
+                Rectangular examined = new Rectangular(Math.min(nx1, npos.getX1()), Math.min(ny1, npos.getY1()),
+                                                       maxx, Math.max(ny2, npos.getY2()));
+                if (!useConsistentStyle || node.hasSameStyle(neigh))
+                {
+                    Rectangular newpos = horizontalJoin(a, node, neigh); //try to join
+                    if (newpos != null)
+                    {
+                        log.debug("Join: {} + {}", node, neigh);
+                        a.mergeChildren(node, neigh, newpos, true);
+                        if (!node.isLeaf())
+                            node.updateTopologies(); //the adopted child areas
+                        work.joined(node, neigh, t.getPosition(node));
+                    }
+                    else
+                        work.examined(node, examined);
+                }
+                else
                 {
-                    //try to find some node at the right in the given distance
-                    for (int y = ny1; neigh == null && y <= ny2; y++)
+                    if (horizontalJoin(a, node, neigh) != null) //check if the nodes could be joined
                     {
-                        neigh = (AreaImpl) t.findAreaAt(nx2 + dist, y);
-                        if (neigh != null) //something found
-                        {
-                            if (!useConsistentStyle || node.hasSameStyle(neigh))
-                            {
-                                if (horizontalJoin(a, node, neigh, true)) //try to join
-                                {
-                                    node.updateTopologies();
-                                    change = true;
-                                }
-                            }
-                            else
-                            {
-                                if (horizontalJoin(a, node, neigh, false)) //check if the nodes could be joined
-                                {
-                                    node.setNextOnLine(neigh);
-                                    neigh.setPreviousOnLine(node);
-                                }
-                            }
-                        }
+                        node.setNextOnLine(neigh);
+                        neigh.setPreviousOnLine(node);
                     }
-                    dist++;
+                    work.examined(node, examined);
                 }
-                if (change) break; //something changed, repeat
             }
+            else
+                work.examined(node, new Rectangular(nx2 + 1, ny1, maxx, ny2));
         }
+        a.removeChildren(work.getJoined());
     }
-
+    
     /**
-     * Joins two boxes horizontally into one area if the node heights are equal or they 
-     * can be aligned to a rectangle using free spaces.
+     * Checks if two boxes may be joined horizontally into one area, i.e. the node heights are equal
+     * or they can be aligned to a rectangle using free spaces. No changes are performed.
      * @param n1 left node to be aligned
      * @param n2 right node to be aligned
-     * @param affect when set to <code>true</code>, the two nodes are joined and n2 is removed from the tree.
-     *        When set to <code>false</code>, no changes are performed (only checking)
-     * @return <code>true</code> when succeeded
+     * @return the grid position of the joined area or {@code null} when the nodes cannot be joined
      */
-    private boolean horizontalJoin(AreaImpl parent, AreaImpl n1, AreaImpl n2, boolean affect)
+    protected Rectangular horizontalJoin(AreaImpl parent, AreaImpl n1, AreaImpl n2)
     {
         //System.out.println("HJoin: " + n1.toString() + " + " + n2.toString());
         //check the maximal distance between the nodes
         int dist = Math.min(Math.abs(n2.getX1() - n1.getX2()), Math.abs(n1.getX1() - n2.getX2()));
         if (dist > n1.getFontSize() * maxLineEmSpace)
-            return false;
+            return null;
         //check if there is no separating border or background
         if (n1.hasRightBorder() || 
             n2.hasLeftBorder() ||
             !n1.hasSameBackground(n2))
-            return false; //separated, give up
+            return null; //separated, give up
         //align the start
         int sy1 = n1.getGridPosition().getY1();
         int sy2 = n2.getGridPosition().getY1();
@@ -217,14 +240,14 @@ public class FindLineOperator extends BaseOperator
                 if (sy2 > 0 && canExpandY(parent, n2, sy2-1, n1))
                     sy2--;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
             else if (sy1 > sy2) //n2 starts earlier, try to expand n1 up
             {
                 if (sy1 > 0 && canExpandY(parent, n1, sy1-1, n2))
                     sy1--;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
         }
         //System.out.println("sy1="+sy1);
@@ -238,27 +261,20 @@ public class FindLineOperator extends BaseOperator
                 if (ey1 < parent.getTopology().getTopologyWidth()-1 && canExpandY(parent, n1, ey1+1, n2))
                     ey1++;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
             else if (ey1 > ey2) //n2 ends earlier, try to expand n2 down
             {
                 if (ey2 < parent.getTopology().getTopologyWidth()-1 && canExpandY(parent, n2, ey2+1, n1))
                     ey2++;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
         }
         //System.out.println("ey1="+ey1);
-        //align succeeded, join the areas
-        if (affect)
-        {
-            log.debug("Join: {} + {}", n1, n2);
-            Rectangular newpos = new Rectangular(n1.getGridPosition().getX1(), sy1,
-                                                 n2.getGridPosition().getX2(), ey1);
-            n1.joinArea(n2, newpos, true);
-            parent.removeChild(n2);
-        }
-        return true;
+        //align succeeded
+        return new Rectangular(n1.getGridPosition().getX1(), sy1,
+                               n2.getGridPosition().getX2(), ey1);
     }
     
     
@@ -274,12 +290,12 @@ public class FindLineOperator extends BaseOperator
     private boolean canExpandY(AreaImpl parent, AreaImpl node, int y, AreaImpl except)
     {
         AreaTopology t = parent.getTopology();
+        OccupancyGrid g = parent.getOccupancyGrid();
         int gx = t.getPosition(node).getX1();
         int gw = t.getTopologyWidth();
-        for (int x = gx; x < gx + gw; x++)
+        for (int x = g.nextOccupiedX(gx, y); x != -1 && x < gx + gw; x = g.nextOccupiedX(x + 1, y))
         {
-            AreaImpl cand = (AreaImpl) t.findAreaAt(x, y);
-            if (cand != null && cand != except)
+            if (g.getAreaAt(x, y) != except)
                 return false; //something found - cannot expand
         }
         return true;
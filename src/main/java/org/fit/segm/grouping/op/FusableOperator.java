@@ -0,0 +1,60 @@
+/**
+ * FusableOperator.java
+ *
+ * Created on 17. 10. 2026, 21:08:35 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import org.fit.layout.model.Area;
+
+/**
+ * A base of the operators that process the tree node by node. The operator declares its traversal
+ * order by {@link #getTraversal()} and implements the processing of a single node in {@link #processNode(Area)}.
+ * Such operators may be fused into a single tree traversal by {@link OperatorPipeline}.
+ *
+ * @author agent
+ */
+public abstract class FusableOperator extends SubtreeOperator
+{
+    /** The order of processing the tree nodes */
+    public enum Traversal
+    {
+        /** A node is processed before its child subtrees */
+        PRE_ORDER,
+        /** A node is processed after its child subtrees */
+        POST_ORDER
+    }
+
+
+    /**
+     * Obtains the order in which the operator processes the tree nodes. Applying the operator must be
+     * equivalent to calling {@link #processNode(Area)} for all the nodes of the tree in this order.
+     * Processing a node must not depend on the processing of the deeper subtree in a pre-order traversal.
+     * Unless the operator is restructuring (see {@link #isRestructuring()}), processing a node may only
+     * read and modify the node and its child areas.
+     * @return the traversal order
+     */
+    public abstract Traversal getTraversal();
+
+    /**
+     * Checks whether processing a node may change the areas below the node in a way that is visible
+     * to the other operators: the child or deeper areas may be removed, joined together or moved
+     * to other (possibly new) parent areas. The operators fused before a restructuring pre-order
+     * operator would process the changed subtrees instead of the original ones and the operators fused
+     * after a restructuring post-order operator would miss the changed subtrees. Therefore, a restructuring
+     * pre-order operator always starts a new stage and a restructuring post-order operator always
+     * ends its stage in {@link OperatorPipeline}. The default implementation returns {@code true}.
+     * @return {@code true} when the operator is restructuring
+     */
+    public boolean isRestructuring()
+    {
+        return true;
+    }
+
+    /**
+     * Processes a single node of the tree.
+     * @param node the node to be processed
+     */
+    protected abstract void processNode(Area node);
+
+}
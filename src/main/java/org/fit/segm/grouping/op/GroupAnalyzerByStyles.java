@@ -11,6 +11,9 @@ import java.util.Vector;
 import org.fit.layout.model.AreaTopology;
 import org.fit.layout.model.Rectangular;
 import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.OccupancyGrid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This group analyzer tries to expand the selected box to all directions stopping on 
@@ -20,6 +23,8 @@ import org.fit.segm.grouping.AreaImpl;
  */
 public class GroupAnalyzerByStyles extends GroupAnalyzer
 {
+    private static Logger log = LoggerFactory.getLogger(GroupAnalyzerByStyles.class);
+    
     private static final short DIR_DOWN = 0;
     private static final short DIR_UP = 1;
     private static final short DIR_RIGHT = 2;
@@ -65,7 +70,7 @@ public class GroupAnalyzerByStyles extends GroupAnalyzer
         
         //starting grid position
         Rectangular gp = new Rectangular(sub.getGridPosition());
-        System.out.println("GSS************* Start: " + gp + " - " + sub);
+        log.trace("Start: {} - {}", gp, sub);
         
         //try to expand to the whole grid
         Rectangular limit = new Rectangular(0, 0, getTopology().getTopologyWidth()-1, getTopology().getTopologyHeight()-1);
@@ -118,7 +123,8 @@ public class GroupAnalyzerByStyles extends GroupAnalyzer
     							short prefDir, short required)
     {
     	//System.out.println();
-    	System.out.println("  Expand " + sub + " DIR=" + prefDir + " sep=" + hsep + ":" + vsep);
+    	if (log.isTraceEnabled())
+    	    log.trace("  Expand {} DIR={} sep={}:{}", sub, prefDir, hsep, vsep);
     	//debugColor = new java.awt.Color(debugColor.getBlue(), debugColor.getRed(), debugColor.getGreen());*/
         //hsep = true;
         //vsep = true;
@@ -250,12 +256,18 @@ public class GroupAnalyzerByStyles extends GroupAnalyzer
         int targety = down ? (gp.getY2() + 1) : (gp.getY1() - 1); 
         //find candidate boxes
         Vector<AreaImpl> cands = new Vector<AreaImpl>();
+        final OccupancyGrid g = parent.getOccupancyGrid();
         int x = gp.getX1();
         while (x <= gp.getX2()) //scan everything at the target position
         {
-            AreaImpl cand = (AreaImpl) getTopology().findAreaAt(x, targety);
+            AreaImpl cand = (AreaImpl) g.getAreaAt(x, targety);
             //ignore candidates that intersect with our area (could leat to an infinite loop)
-            if (cand == null || cand.getGridPosition().intersects(gp))
+            if (cand == null)
+            {
+                x = g.nextOccupiedX(x + 1, targety); //skip the empty cells
+                if (x == -1) break;
+            }
+            else if (cand.getGridPosition().intersects(gp))
                 x++;
             else
             {
@@ -320,10 +332,11 @@ public class GroupAnalyzerByStyles extends GroupAnalyzer
         int targetx = right ? (gp.getX2() + 1) : (gp.getX1() - 1); 
         //find candidate boxes
         boolean found = false;
+        final OccupancyGrid g = parent.getOccupancyGrid();
         int y = gp.getY1();
         while (y <= gp.getY2()) //scan everything at the target position
         {
-            AreaImpl cand = (AreaImpl) getTopology().findAreaAt(targetx, y);
+            AreaImpl cand = (AreaImpl) g.getAreaAt(targetx, y);
             //ignore candidates that intersect with our area (could leat to an infinite loop)
             if (cand != null && !cand.getGridPosition().intersects(gp))
             {
@@ -362,6 +375,11 @@ public class GroupAnalyzerByStyles extends GroupAnalyzer
                 //skip the candidate
                 y += cand.getGridPosition().getY2() + 1;
             }
+            else if (cand == null)
+            {
+                y = g.nextOccupiedY(targetx, y + 1); //skip the empty cells
+                if (y == -1) break;
+            }
             else
                 y++;
         }
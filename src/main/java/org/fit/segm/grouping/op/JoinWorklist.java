@@ -0,0 +1,199 @@
+/**
+ * JoinWorklist.java
+ *
+ * Created on 17. 10. 2026, 19:12:40 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTopology;
+import org.fit.layout.model.Rectangular;
+import org.fit.segm.grouping.AreaImpl;
+
+/**
+ * The order of evaluation of the child areas for the operators that join the neighboring
+ * child areas repeatedly ({@link FindLineOperator}, {@link MultiLineOperator}).
+ * <p>
+ * The child areas are evaluated in their order. Each evaluated area that has not been joined
+ * records the grid region its decision depended on. After a join, the joined area and all the
+ * areas whose regions intersect the changed part of the grid are evaluated again, the first one
+ * in the child order first. This gives the same result as repeating the whole scan from the first
+ * child area after each join. The regions are indexed by the grid rows (or columns) they cover,
+ * so that a join only visits the regions that share a row (column) with the changed part of the grid.
+ * <p>
+ * The positions of the child areas are taken when the worklist is created and they are not
+ * affected by the joins; the joined areas are collected in {@link #getJoined()} so that they may be
+ * removed from the parent area at once.
+ *
+ * @author agent
+ */
+class JoinWorklist
+{
+    /** The child areas in their original order */
+    private final AreaImpl[] nodes;
+    /** The positions of the child areas in {@link #nodes} */
+    private final Map<Area, Integer> ranks;
+    /** The areas that should be evaluated */
+    private final BitSet pending;
+    /** No pending areas are before this position */
+    private int low;
+    /** Are the regions indexed by rows (or columns)? */
+    private final boolean byRows;
+    /** The examined region for every area or {@code null} */
+    private final Rectangular[] regions;
+    /** Incremented whenever the region of the area changes so that the outdated line entries may be recognized */
+    private final int[] stamps;
+    /** The region entries for every grid line: the stamp in the upper half, the area position in the lower half */
+    private final long[][] lines;
+    private final int[] lineSizes;
+    /** The areas joined to other areas */
+    private final List<Area> joined;
+
+    /**
+     * Creates a worklist for the child areas of the given area.
+     * @param parent the parent area
+     * @param byRows {@code true} when the examined regions span whole rows of the grid (the horizontal joins),
+     * {@code false} when they span whole columns (the vertical joins)
+     */
+    public JoinWorklist(AreaImpl parent, boolean byRows)
+    {
+        final int cnt = parent.getChildCount();
+        nodes = new AreaImpl[cnt];
+        ranks = new IdentityHashMap<Area, Integer>(cnt);
+        for (int i = 0; i < cnt; i++)
+        {
+            nodes[i] = (AreaImpl) parent.getChildAt(i);
+            ranks.put(nodes[i], i);
+        }
+        pending = new BitSet(cnt);
+        pending.set(0, cnt);
+        this.byRows = byRows;
+        regions = new Rectangular[cnt];
+        stamps = new int[cnt];
+        final AreaTopology t = parent.getTopology();
+        final int lcnt = Math.max(byRows ? t.getTopologyHeight() : t.getTopologyWidth(), 0);
+        lines = new long[lcnt][];
+        lineSizes = new int[lcnt];
+        joined = new ArrayList<Area>();
+    }
+
+    /**
+     * Obtains the next area to be evaluated.
+     * @return the area or {@code null} when there are no more areas to be evaluated
+     */
+    public AreaImpl next()
+    {
+        final int i = pending.nextSetBit(low);
+        if (i == -1)
+        {
+            low = nodes.length;
+            return null;
+        }
+        pending.clear(i);
+        low = i + 1;
+        return nodes[i];
+    }
+
+    /**
+     * Records the grid region examined during the evaluation of an area that has not been joined.
+     * @param node the evaluated area
+     * @param region the examined region
+     */
+    public void examined(AreaImpl node, Rectangular region)
+    {
+        final int k = ranks.get(node);
+        discard(k);
+        regions[k] = region;
+        final long entry = ((long) stamps[k] << 32) | k;
+        final int last = Math.min(lastLine(region), lines.length - 1);
+        for (int l = Math.max(firstLine(region), 0); l <= last; l++)
+        {
+            if (lines[l] == null)
+                lines[l] = new long[4];
+            else if (lineSizes[l] == lines[l].length)
+                lines[l] = Arrays.copyOf(lines[l], lineSizes[l] * 2);
+            lines[l][lineSizes[l]++] = entry;
+        }
+    }
+
+    /**
+     * Records a join of two areas. The resulting area and the areas that examined the changed
+     * part of the grid will be evaluated again.
+     * @param node the area that remains in the tree
+     * @param other the area joined to {@code node}
+     * @param changed the grid position of the resulting area
+     */
+    public void joined(AreaImpl node, AreaImpl other, Rectangular changed)
+    {
+        final int k = ranks.get(node);
+        final int o = ranks.get(other);
+        discard(k);
+        discard(o);
+        pending.clear(o);
+        joined.add(other);
+        schedule(k);
+        final int last = Math.min(lastLine(changed), lines.length - 1);
+        for (int l = Math.max(firstLine(changed), 0); l <= last; l++)
+        {
+            final long[] line = lines[l];
+            int cnt = 0;
+            for (int i = 0; i < lineSizes[l]; i++)
+            {
+                final int idx = (int) line[i];
+                if (regions[idx] != null && stamps[idx] == (int) (line[i] >>> 32))
+                {
+                    if (regions[idx].intersects(changed))
+                    {
+                        discard(idx);
+                        schedule(idx);
+                    }
+                    else
+                        line[cnt++] = line[i]; //keep the entry
+                }
+            }
+            lineSizes[l] = cnt;
+        }
+    }
+
+    /**
+     * Obtains the areas that have been joined to other areas.
+     * @return the list of joined areas
+     */
+    public List<Area> getJoined()
+    {
+        return joined;
+    }
+
+    //==============================================================================
+
+    private void schedule(int k)
+    {
+        pending.set(k);
+        if (k < low)
+            low = k;
+    }
+
+    private void discard(int k)
+    {
+        regions[k] = null;
+        stamps[k]++;
+    }
+
+    private int firstLine(Rectangular r)
+    {
+        return byRows ? r.getY1() : r.getX1();
+    }
+
+    private int lastLine(Rectangular r)
+    {
+        return byRows ? r.getY2() : r.getX2();
+    }
+
+}
@@ -9,7 +9,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.fit.layout.api.Parameter;
-import org.fit.layout.impl.BaseOperator;
 import org.fit.layout.impl.ParameterBoolean;
 import org.fit.layout.impl.ParameterFloat;
 import org.fit.layout.model.Area;
@@ -17,6 +16,7 @@ import org.fit.layout.model.AreaTopology;
 import org.fit.layout.model.AreaTree;
 import org.fit.layout.model.Rectangular;
 import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.OccupancyGrid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,7 +25,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author burgetr
  */
-public class MultiLineOperator extends BaseOperator
+public class MultiLineOperator extends FusableOperator
 {
     private static Logger log = LoggerFactory.getLogger(MultiLineOperator.class);
 
@@ -78,6 +78,7 @@ public class MultiLineOperator extends BaseOperator
         List<Parameter> ret = new ArrayList<>();
         ret.add(new ParameterBoolean("useConsistentStyle"));
         ret.add(new ParameterFloat("maxLineEmSpace"));
+        ret.addAll(super.defineParams());
         return ret;
     }
 
@@ -125,80 +126,99 @@ public class MultiLineOperator extends BaseOperator
     protected void recursiveJoinAreas(AreaImpl root)
     {
         joinAreas(root);
-        for (int i = 0; i < root.getChildCount(); i++)
-            recursiveJoinAreas((AreaImpl) root.getChildAt(i));
+        processChildSubtrees(root);
+    }
+    
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursiveJoinAreas((AreaImpl) root);
+    }
+    
+    @Override
+    public Traversal getTraversal()
+    {
+        return Traversal.PRE_ORDER;
+    }
+    
+    @Override
+    protected void processNode(Area node)
+    {
+        joinAreas((AreaImpl) node);
     }
     
     /**
      * Goes through the grid of areas and joins the adjacent visual areas that are not
-     * separated by anything
+     * separated by anything. The child areas are processed in their order; after a join,
+     * the joined area and the preceding areas that examined a part of the grid changed
+     * by the join are evaluated again (see {@link JoinWorklist}).
      */
     protected void joinAreas(AreaImpl a)
     {
         AreaTopology t = a.getTopology();
+        JoinWorklist work = new JoinWorklist(a, false);
         
-        boolean change = true;
-        while (change)
+        for (AreaImpl node = work.next(); node != null; node = work.next())
         {
-            change = false;
-            for (int i = 0; i < a.getChildCount(); i++)
-            {
-                AreaImpl node = (AreaImpl) a.getChildAt(i);
-                Rectangular pos = t.getPosition(node);
-                int nx1 = pos.getX1();
-                int nx2 = pos.getX2();
-                int ny2 = pos.getY2();
+            Rectangular pos = t.getPosition(node);
+            int nx1 = pos.getX1();
+            int ny1 = pos.getY1();
+            int nx2 = pos.getX2();
+            int ny2 = pos.getY2();
+            int maxy = Math.max(ny2 + 1, t.getTopologyHeight() - 1);
 
-                //try to expand down - find a neighbor
+            //try to expand down - find the nearest neighbor
+            final OccupancyGrid g = a.getOccupancyGrid();
+            final int ny = g.nextOccupiedRow(nx1, nx2, ny2 + 1);
+            if (ny != -1)
+            {
                 AreaImpl neigh = null;
-                int dist = 1;
-                while (neigh == null && ny2 + dist < t.getTopologyHeight())
+                for (int x = nx1; neigh == null && x <= nx2; x++)
+                    neigh = (AreaImpl) g.getAreaAt(x, ny);
+                //the alignment checks the columns of both areas down from their start
+                Rectangular npos = t.getPosition(neigh);
+                Rectangular examined = new Rectangular(Math.min(nx1, npos.getX1()), Math.min(ny1, npos.getY1()),
+                                                       Math.max(nx2, npos.getX2()), maxy);
+                Rectangular newpos = null;
+                if ((!useConsistentStyle || node.hasSameStyle(neigh))
+                        && neigh.getGridPosition().getX1() == nx1)
+                    newpos = verticalJoin(a, node, neigh); //try to join
+                if (newpos != null)
                 {
-                    //try to find some node below in the given distance
-                    for (int x = nx1; neigh == null && x <= nx2; x++)
-                    {
-                        neigh = (AreaImpl) t.findAreaAt(x, ny2 + dist);
-                        if (neigh != null) //something found
-                        {
-                            if ((!useConsistentStyle || node.hasSameStyle(neigh))
-                                    && neigh.getGridPosition().getX1() == nx1)
-                            {
-                                if (verticalJoin(a, node, neigh, true)) //try to join
-                                {
-                                    node.updateTopologies();
-                                    change = true;
-                                }
-                            }
-                        }
-                    }
-                    dist++;
+                    log.debug("VJoin: {} + {}", node, neigh);
+                    a.mergeChildren(node, neigh, newpos, true);
+                    if (!node.isLeaf())
+                        node.updateTopologies(); //the adopted child areas
+                    work.joined(node, neigh, t.getPosition(node));
                 }
-                if (change) break; //something changed, repeat
+                else
+                    work.examined(node, examined);
             }
+            else
+                work.examined(node, new Rectangular(nx1, ny2 + 1, nx2, maxy));
         }
+        a.removeChildren(work.getJoined());
     }
-
+    
     /**
-     * Joins two boxes vertically into one area if the node widths are equal or they 
-     * can be aligned to a rectangle using free spaces.
-     * @param n1 left node to be aligned
-     * @param n2 right node to be aligned
-     * @param affect when set to <code>true</code>, the two nodes are joined and n2 is removed from the tree.
-     *        When set to <code>false</code>, no changes are performed (only checking)
-     * @return <code>true</code> when succeeded
+     * Checks if two boxes may be joined vertically into one area, i.e. the node widths are equal
+     * or they can be aligned to a rectangle using free spaces. No changes are performed.
+     * @param n1 upper node to be aligned
+     * @param n2 lower node to be aligned
+     * @return the grid position of the joined area or {@code null} when the nodes cannot be joined
      */
-    private boolean verticalJoin(AreaImpl parent, AreaImpl n1, AreaImpl n2, boolean affect)
+    protected Rectangular verticalJoin(AreaImpl parent, AreaImpl n1, AreaImpl n2)
     {
         //System.out.println("VJoin: " + n1.toString() + " + " + n2.toString());
         //check the maximal distance between the nodes
         int dist = Math.min(Math.abs(n2.getY1() - n1.getY2()), Math.abs(n1.getY1() - n2.getY2()));
         if (dist > n1.getFontSize() * maxLineEmSpace)
-            return false;
+            return null;
         //check if there is no separating border or background
         if (n1.hasBottomBorder() || 
             n2.hasTopBorder() ||
             !n1.hasSameBackground(n2))
-            return false; //separated, give up
+            return null; //separated, give up
         //align the start
         int sx1 = n1.getGridPosition().getX1();
         int sx2 = n2.getGridPosition().getX1();
@@ -209,14 +229,14 @@ public class MultiLineOperator extends BaseOperator
                 if (sx2 > 0 && canExpandX(parent, n2, sx2-1, n1))
                     sx2--;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
             else if (sx1 > sx2) //n2 starts earlier, try to expand n1 to the left
             {
                 if (sx1 > 0 && canExpandX(parent, n1, sx1-1, n2))
                     sx1--;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
         }
         //System.out.println("sy1="+sy1);
@@ -230,27 +250,20 @@ public class MultiLineOperator extends BaseOperator
                 if (ex1 < parent.getTopology().getTopologyHeight()-1 && canExpandX(parent, n1, ex1+1, n2))
                     ex1++;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
             else if (ex1 > ex2) //n2 ends earlier, try to expand n2 to the right
             {
                 if (ex2 < parent.getTopology().getTopologyHeight()-1 && canExpandX(parent, n2, ex2+1, n1))
                     ex2++;
                 else
-                    return false; //cannot align - give up
+                    return null; //cannot align - give up
             }
         }
         //System.out.println("ey1="+ey1);
-        //align succeeded, join the areas
-        if (affect)
-        {
-            log.debug("VJoin: {} + {}", n1, n2);
-            Rectangular newpos = new Rectangular(sx1, n1.getGridPosition().getY1(),
-                                                 ex1, n2.getGridPosition().getY2());
-            n1.joinArea(n2, newpos, true);
-            parent.removeChild(n2);
-        }
-        return true;
+        //align succeeded
+        return new Rectangular(sx1, n1.getGridPosition().getY1(),
+                               ex1, n2.getGridPosition().getY2());
     }
     
     
@@ -266,12 +279,12 @@ public class MultiLineOperator extends BaseOperator
     private boolean canExpandX(AreaImpl parent, AreaImpl node, int x, AreaImpl except)
     {
         AreaTopology t = parent.getTopology();
+        OccupancyGrid g = parent.getOccupancyGrid();
         int gy = t.getPosition(node).getY1();
         int gh = t.getTopologyHeight();
-        for (int y = gy; y < gy + gh; y++)
+        for (int y = g.nextOccupiedY(x, gy); y != -1 && y < gy + gh; y = g.nextOccupiedY(x, y + 1))
         {
-            AreaImpl cand = (AreaImpl) t.findAreaAt(x, y);
-            if (cand != null && cand != except)
+            if (g.getAreaAt(x, y) != except)
                 return false; //something found - cannot expand
         }
         return true;
@@ -0,0 +1,228 @@
+/**
+ * OperatorPipeline.java
+ *
+ * Created on 17. 10. 2026, 17:47:51 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.fit.layout.api.AreaTreeOperator;
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTree;
+import org.fit.segm.grouping.op.FusableOperator.Traversal;
+
+/**
+ * A sequence of operators applied on an area tree. The consecutive {@link FusableOperator}s are fused
+ * into stages that process the tree in a single traversal: a stage consists of any number of pre-order
+ * operators followed by any number of post-order operators. For each node, the pre-order operators
+ * are applied in their order, then the child subtrees are processed and finally the post-order operators
+ * are applied. A restructuring pre-order operator always starts a new stage and a restructuring post-order
+ * operator always ends its stage (see {@link FusableOperator#isRestructuring()}), so that the result is
+ * the same as when the operators are applied one by one. The remaining operators are applied separately
+ * in their order.
+ * <p>
+ * For example, the usual sequence of the line detection, the multi-line detection, the super area
+ * detection, collapsing the areas and sorting the areas is processed in three traversals instead of five:
+ * the multi-line detection joins the areas created by the line detection together with their child areas,
+ * so it starts a new stage.
+ * The pipeline uses the operator instances directly, so the operators must not be re-configured
+ * while the pipeline is being applied.
+ *
+ * @author agent
+ */
+public class OperatorPipeline
+{
+    /** The stages of the pipeline */
+    private final List<AreaTreeOperator> stages;
+
+
+    /**
+     * Creates a pipeline for the given sequence of operators.
+     * @param operators the operators in the order of application
+     */
+    public OperatorPipeline(List<? extends AreaTreeOperator> operators)
+    {
+        this.stages = Collections.unmodifiableList(createStages(operators));
+    }
+
+    /**
+     * Obtains the stages of the pipeline. Each stage is either one of the source operators or a fused
+     * stage that represents several consecutive source operators.
+     * @return the list of stages
+     */
+    public List<AreaTreeOperator> getStages()
+    {
+        return stages;
+    }
+
+    /**
+     * Applies all the operators on the area tree.
+     * @param atree the area tree
+     */
+    public void apply(AreaTree atree)
+    {
+        for (AreaTreeOperator op : stages)
+            op.apply(atree);
+    }
+
+    /**
+     * Applies all the operators on a subtree of an area tree.
+     * @param atree the area tree
+     * @param root the root of the subtree
+     */
+    public void apply(AreaTree atree, Area root)
+    {
+        for (AreaTreeOperator op : stages)
+            op.apply(atree, root);
+    }
+
+    //==============================================================================
+
+    private static List<AreaTreeOperator> createStages(List<? extends AreaTreeOperator> operators)
+    {
+        List<AreaTreeOperator> ret = new ArrayList<AreaTreeOperator>();
+        FusedStage cur = null;
+        for (AreaTreeOperator op : operators)
+        {
+            if (op instanceof FusableOperator)
+            {
+                final FusableOperator fop = (FusableOperator) op;
+                final Traversal traversal = fop.getTraversal();
+                if (cur == null || cur.closed
+                        || (traversal == Traversal.PRE_ORDER && (!cur.post.isEmpty() || fop.isRestructuring())))
+                {
+                    //pre-order operators cannot follow the post-order ones in a single traversal
+                    //and the preceding operators must not see the subtrees restructured by this one
+                    addStage(ret, cur);
+                    cur = new FusedStage();
+                }
+                cur.add(fop, traversal);
+            }
+            else
+            {
+                addStage(ret, cur);
+                cur = null;
+                ret.add(op);
+            }
+        }
+        addStage(ret, cur);
+        return ret;
+    }
+
+    private static void addStage(List<AreaTreeOperator> dest, FusedStage stage)
+    {
+        if (stage != null)
+        {
+            if (stage.size() == 1) //nothing to fuse, use the operator directly
+                dest.add(stage.pre.isEmpty() ? stage.post.get(0) : stage.pre.get(0));
+            else
+                dest.add(stage);
+        }
+    }
+
+    //==============================================================================
+
+    /**
+     * A stage that applies several operators in a single traversal. The large subtrees are processed
+     * in parallel when any of the fused operators has the parallel mode enabled.
+     */
+    private static class FusedStage extends SubtreeOperator
+    {
+        private final List<FusableOperator> pre;
+        private final List<FusableOperator> post;
+        /** No more operators may be added (a restructuring post-order operator has been added) */
+        private boolean closed;
+
+        public FusedStage()
+        {
+            pre = new ArrayList<FusableOperator>();
+            post = new ArrayList<FusableOperator>();
+            closed = false;
+            parallel = false;
+            parallelThreshold = Integer.MAX_VALUE;
+        }
+
+        public void add(FusableOperator op, Traversal traversal)
+        {
+            if (traversal == Traversal.PRE_ORDER)
+                pre.add(op);
+            else
+            {
+                post.add(op);
+                if (op.isRestructuring())
+                    closed = true; //the following operators would miss the restructured subtrees
+            }
+            if (op.getParallel())
+            {
+                parallel = true;
+                parallelThreshold = Math.min(parallelThreshold, op.getParallelThreshold());
+            }
+        }
+
+        public int size()
+        {
+            return pre.size() + post.size();
+        }
+
+        @Override
+        public String getId()
+        {
+            return "FitLayout.Segm.FusedStage";
+        }
+
+        @Override
+        public String getName()
+        {
+            StringBuilder ret = new StringBuilder("Fused stage:");
+            for (FusableOperator op : pre)
+                ret.append(' ').append(op.getName()).append(';');
+            for (FusableOperator op : post)
+                ret.append(' ').append(op.getName()).append(';');
+            return ret.toString();
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "Applies several operators in a single tree traversal";
+        }
+
+        @Override
+        public String getCategory()
+        {
+            return "restructure";
+        }
+
+        @Override
+        public void apply(AreaTree atree)
+        {
+            processSubtree(atree.getRoot());
+        }
+
+        @Override
+        public void apply(AreaTree atree, Area root)
+        {
+            processSubtree(root);
+        }
+
+        @Override
+        protected void processSubtree(Area root)
+        {
+            for (FusableOperator op : pre)
+                op.processNode(root);
+            processChildSubtrees(root);
+            for (FusableOperator op : post)
+                op.processNode(root);
+        }
+
+        @Override
+        public String toString()
+        {
+            return getName();
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * SeparatorIndex.java
+ *
+ * Created on 17. 10. 2026, 17:27:07 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable spatial index of separators used for fast point queries. The index is
+ * a centered interval tree built over the X intervals of the separators; each node keeps
+ * the separators crossing its center sorted by their left and right edges so that
+ * a point query visits O(log n) nodes and only the separators that may contain the point.
+ *
+ * @author agent
+ */
+public class SeparatorIndex
+{
+    private static final Comparator<Separator> BY_X1 = new Comparator<Separator>() {
+        public int compare(Separator s1, Separator s2)
+        {
+            return Integer.compare(s1.getX1(), s2.getX1());
+        }
+    };
+
+    private static final Comparator<Separator> BY_X2_DESC = new Comparator<Separator>() {
+        public int compare(Separator s1, Separator s2)
+        {
+            return Integer.compare(s2.getX2(), s1.getX2());
+        }
+    };
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * Creates an index of the given separators. The separators must not be modified
+     * while the index is in use. Empty separators (e.g. the borders of zero-size areas) do not
+     * cover any point and they are not indexed.
+     * @param separators the separators to be indexed
+     */
+    public SeparatorIndex(Collection<Separator> separators)
+    {
+        List<Separator> list = new ArrayList<Separator>(separators.size());
+        for (Separator sep : separators)
+        {
+            if (sep.getX1() <= sep.getX2() && sep.getY1() <= sep.getY2())
+                list.add(sep);
+        }
+        size = list.size();
+        root = build(list);
+    }
+
+    /**
+     * Creates an index of all the separators in the given collections.
+     * @param collections the collections of separators to be indexed
+     */
+    @SafeVarargs
+    public static SeparatorIndex create(Collection<Separator>... collections)
+    {
+        List<Separator> all = new ArrayList<Separator>();
+        for (Collection<Separator> col : collections)
+            all.addAll(col);
+        return new SeparatorIndex(all);
+    }
+
+    /**
+     * @return the number of indexed (non-empty) separators
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Checks if a point is covered by any of the indexed separators.
+     * @param x the point x coordinate
+     * @param y the point y coordinate
+     * @return <code>true</code> if any of the separators covers the specified point
+     */
+    public boolean isSeparatorAt(int x, int y)
+    {
+        Node node = root;
+        while (node != null)
+        {
+            if (x < node.center)
+            {
+                for (Separator sep : node.byX1)
+                {
+                    if (sep.getX1() > x)
+                        break;
+                    if (sep.getY1() <= y && sep.getY2() >= y)
+                        return true;
+                }
+                node = node.left;
+            }
+            else if (x > node.center)
+            {
+                for (Separator sep : node.byX2)
+                {
+                    if (sep.getX2() < x)
+                        break;
+                    if (sep.getY1() <= y && sep.getY2() >= y)
+                        return true;
+                }
+                node = node.right;
+            }
+            else
+            {
+                //all the separators in the node contain the center
+                for (Separator sep : node.byX1)
+                {
+                    if (sep.getY1() <= y && sep.getY2() >= y)
+                        return true;
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    //======================================================================================
+
+    private static Node build(List<Separator> list)
+    {
+        if (list.isEmpty())
+            return null;
+
+        //use the median of the interval endpoints as the center
+        int[] ends = new int[list.size() * 2];
+        int i = 0;
+        for (Separator sep : list)
+        {
+            ends[i++] = sep.getX1();
+            ends[i++] = sep.getX2();
+        }
+        Arrays.sort(ends);
+        final int center = ends[ends.length / 2];
+
+        List<Separator> leftList = new ArrayList<Separator>();
+        List<Separator> rightList = new ArrayList<Separator>();
+        List<Separator> cross = new ArrayList<Separator>();
+        for (Separator sep : list)
+        {
+            if (sep.getX2() < center)
+                leftList.add(sep);
+            else if (sep.getX1() > center)
+                rightList.add(sep);
+            else
+                cross.add(sep);
+        }
+
+        Separator[] byX1 = cross.toArray(new Separator[cross.size()]);
+        Separator[] byX2 = byX1.clone();
+        Arrays.sort(byX1, BY_X1);
+        Arrays.sort(byX2, BY_X2_DESC);
+        return new Node(center, byX1, byX2, build(leftList), build(rightList));
+    }
+
+    private static class Node
+    {
+        final int center;
+        /** Separators crossing the center sorted by the left edge */
+        final Separator[] byX1;
+        /** Separators crossing the center sorted by the right edge (descending) */
+        final Separator[] byX2;
+        final Node left;
+        final Node right;
+
+        Node(int center, Separator[] byX1, Separator[] byX2, Node left, Node right)
+        {
+            this.center = center;
+            this.byX1 = byX1;
+            this.byX2 = byX2;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+}
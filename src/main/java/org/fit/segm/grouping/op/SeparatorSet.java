@@ -5,7 +5,9 @@ package org.fit.segm.grouping.op;
 
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Vector;
+import java.util.function.Predicate;
 
 import org.fit.layout.model.Area;
 import org.fit.segm.grouping.AreaImpl;
@@ -39,22 +41,39 @@ public abstract class SeparatorSet
 
     /** List of separators comming from the box analysis */
     protected Vector<Separator> bsep;
+    
+    /** Spatial index of all the separators used for point queries (if created) */
+    protected SeparatorIndex index;
+    
+    /** Compute the separators of the independent virtual sub-areas in parallel (if supported by the implementation) */
+    protected final boolean parallel;
 	
 	/**
 	 * Creates a new separator set with one horizontal and one vertical separator.
 	 */
 	public SeparatorSet(AreaImpl root)
 	{
-        this.root = root;
-        init(null);
+        this(root, null, false);
 	}
 
     /**
      * Creates a new separator set with one horizontal and one vertical separator.
      */
     public SeparatorSet(AreaImpl root, Area filter)
+    {
+        this(root, filter, false);
+    }
+    
+    /**
+     * Creates a new separator set with one horizontal and one vertical separator.
+     * @param root the root area
+     * @param filter if not null, only the sub areas enclosed in the filter area are considered
+     * @param parallel compute the separators of the independent virtual sub-areas in parallel
+     */
+    public SeparatorSet(AreaImpl root, Area filter, boolean parallel)
     {
         this.root = root;
+        this.parallel = parallel;
         init(filter);
     }
     
@@ -66,21 +85,51 @@ public abstract class SeparatorSet
     
     //=====================================================================================
     
+    /**
+     * @return {@code true} when the separators of the independent virtual sub-areas are computed in parallel
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+    
+    /**
+     * @return the horizontal separators. When the returned list is modified, {@link #updateIndex()} must be called.
+     */
     public Vector<Separator> getHorizontal()
     {
         return hsep;
     }
     
+    /**
+     * @return the vertical separators. When the returned list is modified, {@link #updateIndex()} must be called.
+     */
     public Vector<Separator> getVertical()
     {
         return vsep;
     }
     
+    /**
+     * @return the separators comming from the box analysis. When the returned list is modified,
+     * {@link #updateIndex()} must be called.
+     */
     public Vector<Separator> getBoxsep()
     {
         return bsep;
     }
     
+    /**
+     * Removes all the separators that satisfy the given condition and updates the spatial index.
+     * @param filter the condition
+     */
+    public void removeIf(Predicate<Separator> filter)
+    {
+        hsep.removeIf(filter);
+        vsep.removeIf(filter);
+        bsep.removeIf(filter);
+        updateIndex();
+    }
+    
     /**
      * Obtains the most important (with the greatest weight) separator from all the separators.
      * The separators must be sorted before this metod is called.
@@ -130,9 +179,21 @@ public abstract class SeparatorSet
      */
     public boolean isSeparatorAt(int x, int y)
     {
-        return containsSeparatorAt(x, y, bsep) ||
-               containsSeparatorAt(x, y, hsep) ||
-               containsSeparatorAt(x, y, vsep);
+        if (index != null)
+            return index.isSeparatorAt(x, y);
+        else
+            return containsSeparatorAt(x, y, bsep) ||
+                   containsSeparatorAt(x, y, hsep) ||
+                   containsSeparatorAt(x, y, vsep);
+    }
+    
+    /**
+     * Re-creates the spatial index used by {@link #isSeparatorAt(int, int)}. This must be called
+     * whenever the separator lists are modified after the final filters have been applied.
+     */
+    public void updateIndex()
+    {
+        index = SeparatorIndex.create(bsep, hsep, vsep);
     }
     
     private boolean containsSeparatorAt(int x, int y, Vector<Separator> col)
@@ -179,6 +240,7 @@ public abstract class SeparatorSet
         filterSeparators();
         processIntersections();
         sortSeparators();
+        updateIndex();
     }
     
     //=====================================================================================
@@ -206,6 +268,16 @@ public abstract class SeparatorSet
      * Removes all the separators where the weight is lower than the specified threshold.
      */
     protected void filterSeparators()
+    {
+        filterSeparators(hsep, vsep);
+    }
+    
+    /**
+     * Removes all the separators from the given lists where the weight is lower than the specified threshold.
+     * @param hsep the horizontal separators to be filtered
+     * @param vsep the vertical separators to be filtered
+     */
+    protected void filterSeparators(List<Separator> hsep, List<Separator> vsep)
     {
         /*int hthreshold = (int) (root.getArea().getDeclaredFontSize() * HSEP_MIN_HEIGHT);
         int vthreshold = (int) (root.getArea().getDeclaredFontSize() * VSEP_MIN_WIDTH);*/
@@ -5,8 +5,13 @@
  */
 package org.fit.segm.grouping.op;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 import org.fit.layout.model.Area;
 import org.fit.segm.grouping.AreaImpl;
@@ -34,6 +39,17 @@ public class SeparatorSetHVS extends SeparatorSet
         super(root, filter);
     }
     
+    /**
+     * Creates a new separator set with one horizontal and one vertical separator.
+     * @param root the root area
+     * @param filter if not null, only the sub areas enclosed in the filter area are considered
+     * @param parallel compute the separator sets of the virtual sub-areas as fork/join tasks
+     */
+    public SeparatorSetHVS(AreaImpl root, Area filter, boolean parallel)
+    {
+        super(root, filter, parallel);
+    }
+    
     //=====================================================================================
     
     /**
@@ -69,12 +85,8 @@ public class SeparatorSetHVS extends SeparatorSet
             //System.out.println("Start: " + areas.size() + " areas"); wait(5000);
             if (areas.size() > 1)
             {
-                for (Iterator<Area> it = areas.iterator(); it.hasNext(); )
+                for (SeparatorSet aset : createSubsets(area, areas))
                 {
-                    Area a = it.next();
-                    //System.out.println("Area: " + a);
-                    //dispRect(a.getBounds(), java.awt.Color.RED); wait(100);
-                    SeparatorSet aset = new SeparatorSetHVS(area, a);
                     hsep.addAll(aset.getHorizontal());
                     vsep.addAll(aset.getVertical());
                 }
@@ -88,11 +100,91 @@ public class SeparatorSetHVS extends SeparatorSet
         applyRegularFilters();
     }
     
+    /**
+     * Creates the separator sets for all the virtual sub-areas. When the parallel mode is enabled
+     * (see {@link #isParallel()}), the sets are computed as fork/join tasks in the current pool or
+     * in the common pool. In both cases, the resulting sets are returned in the order of the sub-areas
+     * so that the merged result is deterministic.
+     * @param area the root area
+     * @param areas the virtual sub-areas
+     * @return the list of separator sets corresponding to the sub-areas
+     */
+    protected List<SeparatorSet> createSubsets(AreaImpl area, List<Area> areas)
+    {
+        List<SeparatorSet> ret = new ArrayList<SeparatorSet>(areas.size());
+        if (parallel)
+        {
+            final List<SubsetTask> tasks = new ArrayList<SubsetTask>(areas.size());
+            for (Area a : areas)
+                tasks.add(new SubsetTask(area, a));
+            if (ForkJoinTask.inForkJoinPool())
+                ForkJoinTask.invokeAll(tasks);
+            else
+            {
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+                    protected void compute()
+                    {
+                        invokeAll(tasks);
+                    }
+                });
+            }
+            for (SubsetTask task : tasks)
+                ret.add(task.join());
+        }
+        else
+        {
+            for (Area a : areas)
+            {
+                //System.out.println("Area: " + a);
+                //dispRect(a.getBounds(), java.awt.Color.RED); wait(100);
+                ret.add(createSubset(area, a));
+            }
+        }
+        return ret;
+    }
+    
+    /**
+     * A task that creates the separator set for a single virtual sub-area.
+     */
+    private class SubsetTask extends RecursiveTask<SeparatorSet>
+    {
+        private static final long serialVersionUID = 1L;
+        private final AreaImpl area;
+        private final Area filter;
+        
+        public SubsetTask(AreaImpl area, Area filter)
+        {
+            this.area = area;
+            this.filter = filter;
+        }
+
+        @Override
+        protected SeparatorSet compute()
+        {
+            return createSubset(area, filter);
+        }
+    }
+    
+    /**
+     * Creates a separator set for a virtual sub-area created by {@link #createAreas(Area)}.
+     * @param area the root area
+     * @param filter the virtual sub-area
+     * @return the new separator set
+     */
+    protected SeparatorSet createSubset(AreaImpl area, Area filter)
+    {
+        return new SeparatorSetHVS(area, filter, parallel);
+    }
+    
     /**
      * Consider a new area -- updates the separators according to this new area
+     * @param hs the horizontal separators to be updated
+     * @param vs the vertical separators to be updated
      * @param area The new area node to be considered
+     * @param index The child index of the area node in the root area
      */
-    private void considerArea(AreaImpl area)
+    private void considerArea(SeparatorStore hs, SeparatorStore vs, AreaImpl area, int index)
     {
         //area coordinates
         int ax1 = area.getX1();
@@ -100,81 +192,77 @@ public class SeparatorSetHVS extends SeparatorSet
         int ax2 = area.getX2();
         int ay2 = area.getY2();
         
-        //go through horizontal separators
-        Vector<Separator> newseps = new Vector<Separator>();
-        for (Iterator<Separator> it = hsep.iterator(); it.hasNext();)
+        //go through horizontal separators (the new ones are added to the end and they are not considered)
+        final int hcnt = hs.size();
+        for (int i = 0; i < hcnt; i++)
         {
-            Separator sep = it.next();
-            int sy1 = sep.getY1();
-            int sy2 = sep.getY2();
+            if (hs.isRemoved(i))
+                continue;
+            int sy1 = hs.getY1(i);
+            int sy2 = hs.getY2(i);
             //the box covers the separator -- remove the separator 
             if (ay1 <= sy1 && ay2 >= sy2)
             {
-                it.remove();
+                hs.remove(i);
             }
             //box entirely inside -- split the separator 
             else if (ay1 > sy1 && ay2 < sy2)
             {
-                Separator newsep = new Separator(Separator.HORIZONTAL,
-                                                 sep.getX1(), ay2 + 1,
-                                                 sep.getX2(), sep.getY2());
-                newseps.add(newsep);
-                sep.setY2(ay1 - 1);
-                newsep.setArea1(area);
-                sep.setArea2(area);
+                int ni = hs.add(Separator.HORIZONTAL, hs.getX1(i), ay2 + 1, hs.getX2(i), sy2);
+                hs.setY2(i, ay1 - 1);
+                hs.setArea1(ni, index);
+                hs.setArea2(i, index);
             }
             //box partially covers the separator -- update the separator
             else if ((ay1 > sy1 && ay1 <= sy2) && ay2 >= sy2)
             {
-                sep.setY2(ay1 - 1);
-                sep.setArea2(area);
+                hs.setY2(i, ay1 - 1);
+                hs.setArea2(i, index);
             }
             //box partially covers the separator -- update the separator
             else if (ay1 <= sy1 && (ay2 >= sy1 && ay2 < sy2))
             {
-                sep.setY1(ay2 + 1);
-                sep.setArea1(area);
+                hs.setY1(i, ay2 + 1);
+                hs.setArea1(i, index);
             }
         }
-        hsep.addAll(newseps);
+        hs.compact();
         
         //go through vertical separators
-        newseps = new Vector<Separator>();
-        for (Iterator<Separator> it = vsep.iterator(); it.hasNext();)
+        final int vcnt = vs.size();
+        for (int i = 0; i < vcnt; i++)
         {
-            Separator sep = it.next();
-            int sx1 = sep.getX1();
-            int sx2 = sep.getX2();
+            if (vs.isRemoved(i))
+                continue;
+            int sx1 = vs.getX1(i);
+            int sx2 = vs.getX2(i);
             //the box covers the separator -- remove the separator 
             if (ax1 <= sx1 && ax2 >= sx2)
             {
-                it.remove();
+                vs.remove(i);
             }
             //box entirely inside -- split the separator 
             else if (ax1 > sx1 && ax2 < sx2)
             {
-                Separator newsep = new Separator(Separator.VERTICAL,
-                                                 ax2 + 1, sep.getY1(),
-                                                 sep.getX2(), sep.getY2());
-                newseps.add(newsep);
-                sep.setX2(ax1 - 1);
-                newsep.setArea1(area);
-                sep.setArea2(area);
+                int ni = vs.add(Separator.VERTICAL, ax2 + 1, vs.getY1(i), sx2, vs.getY2(i));
+                vs.setX2(i, ax1 - 1);
+                vs.setArea1(ni, index);
+                vs.setArea2(i, index);
             }
             //box partially covers the separator -- update the separator
             else if ((ax1 > sx1 && ax1 <= sx2) && ax2 >= sx2)
             {
-                sep.setX2(ax1 - 1);
-                sep.setArea2(area);
+                vs.setX2(i, ax1 - 1);
+                vs.setArea2(i, index);
             }
             //box partially covers the separator -- update the separator
             else if (ax1 <= sx1 && (ax2 >= sx1 && ax2 < sx2))
             {
-                sep.setX1(ax2 + 1);
-                sep.setArea1(area);
+                vs.setX1(i, ax2 + 1);
+                vs.setArea1(i, index);
             }
         }
-        vsep.addAll(newseps);
+        vs.compact();
     }
     
     /**
@@ -184,9 +272,11 @@ public class SeparatorSetHVS extends SeparatorSet
      * @param filter if not null, only the sub areas enclosed in the filter area are considered
      * @return the number of processed subareas
      */
-    private int considerSubareas(AreaImpl area, Area filter)
+    protected int considerSubareas(AreaImpl area, Area filter)
     {
         int ret = 0;
+        SeparatorStore hs = new SeparatorStore(hsep, area);
+        SeparatorStore vs = new SeparatorStore(vsep, area);
         for (int i = 0; i < area.getChildCount(); i++)
         {
             Area sub = area.getChildAt(i);
@@ -205,11 +295,13 @@ public class SeparatorSetHVS extends SeparatorSet
                     //dispRect(sub.getArea().getBounds(), java.awt.Color.GREEN); wait(200);
                     //if (sub.toString().contains("MediaEval"))
                     //    System.out.println("jo!");
-                    considerArea((AreaImpl) sub);
+                    considerArea(hs, vs, (AreaImpl) sub, i);
                     ret++;
                 }
             }
         }
+        hsep = hs.toSeparators(area);
+        vsep = vs.toSeparators(area);
         applyRegularFilters();
         return ret;
     }
@@ -218,45 +310,44 @@ public class SeparatorSetHVS extends SeparatorSet
     //=====================================================================================
 
     /**
-     * Add a separator and split or update the areas if necessary.
+     * Add a separator and split or update the areas if necessary. The new areas are added
+     * to the end of the store and they are not considered for this separator.
      */
-    private void considerSeparator(Vector<Area> areas, Separator sep, boolean horizontal)
+    private void considerSeparator(SeparatorStore areas, Separator sep, boolean horizontal)
     {
         //dispRect(sep, java.awt.Color.GREEN); wait(1000);
 
-        Vector<Area> newareas = new Vector<Area>();
+        final int cnt = areas.size();
         if (horizontal) //horizontal separator
         {
             int sy1 = sep.getY1();
             int sy2 = sep.getY2();
-            for (Iterator<Area> it = areas.iterator(); it.hasNext();)
+            for (int i = 0; i < cnt; i++)
             {
-                Area area = it.next();
-                int ay1 = area.getY1();
-                int ay2 = area.getY2();
+                if (areas.isRemoved(i))
+                    continue;
+                int ay1 = areas.getY1(i);
+                int ay2 = areas.getY2(i);
                 //the separator covers the area -- remove the area 
                 if (sy1 <= ay1 && sy2 >= ay2)
                 {
-                    it.remove();
+                    areas.remove(i);
                 }
                 //separator entirely inside -- split the area 
                 else if (sy1 > ay1 && sy2 < ay2)
                 {
-                    AreaImpl newarea = new AreaImpl(area.getX1(), sy2 + 1,
-                                                        area.getX2(), area.getY2());
-                    newarea.setPage(area.getPage());
-                    newareas.add(newarea);
-                    area.getBounds().setY2(sy1 - 1);
+                    areas.add(areas.getX1(i), sy2 + 1, areas.getX2(i), ay2);
+                    areas.setY2(i, sy1 - 1);
                 }
                 //separator partially covers the area -- update the area
                 else if ((sy1 > ay1 && sy1 <= ay2) && sy2 >= ay2)
                 {
-                    area.getBounds().setY2(sy1 - 1);
+                    areas.setY2(i, sy1 - 1);
                 }
                 //separator partially covers the area -- update the area
                 else if (sy1 <= ay1 && (sy2 >= ay1 && sy2 < ay2))
                 {
-                    area.getBounds().setY1(sy2 + 1);
+                    areas.setY1(i, sy2 + 1);
                 }
             }
         }
@@ -264,81 +355,78 @@ public class SeparatorSetHVS extends SeparatorSet
         {
             int sx1 = sep.getX1();
             int sx2 = sep.getX2();
-            for (Iterator<Area> it = areas.iterator(); it.hasNext();)
+            for (int i = 0; i < cnt; i++)
             {
-                Area area = it.next();
-                int ax1 = area.getX1();
-                int ax2 = area.getX2();
+                if (areas.isRemoved(i))
+                    continue;
+                int ax1 = areas.getX1(i);
+                int ax2 = areas.getX2(i);
                 //the separator covers the area -- remove the area 
                 if (sx1 <= ax1 && sx2 >= ax2)
                 {
-                    it.remove();
+                    areas.remove(i);
                 }
                 //separator entirely inside -- split the area 
                 else if (sx1 > ax1 && sx2 < ax2)
                 {
-                    Area newarea = new AreaImpl(sx2 + 1, area.getY1(),
-                                                        area.getX2(), area.getY2());
-                    newareas.add(newarea);
-                    area.getBounds().setX2(sx1 - 1);
+                    areas.add(sx2 + 1, areas.getY1(i), ax2, areas.getY2(i));
+                    areas.setX2(i, sx1 - 1);
                 }
                 //separator partially covers the area -- update the area
                 else if ((sx1 > ax1 && sx1 <= ax2) && sx2 >= ax2)
                 {
-                    area.getBounds().setX2(sx1 - 1);
+                    areas.setX2(i, sx1 - 1);
                 }
                 //separator partially covers the area -- update the area
                 else if (sx1 <= ax1 && (sx2 >= ax1 && sx2 < ax2))
                 {
-                    area.getBounds().setX1(sx2 + 1);
+                    areas.setX1(i, sx2 + 1);
                 }
             }
         }
-        areas.addAll(newareas);
+        areas.compact();
     }
     
     /**
      * Add a separator but do not consider its width (zero-width separator). Split or update the areas if necessary.
      * Thin separators are considered only when they span for the whole width/height of the processed area.
      */
-    private void considerThinSeparator(Vector<Area> areas, Separator sep, boolean horizontal)
+    private void considerThinSeparator(SeparatorStore areas, Separator sep, boolean horizontal)
     {
-        Vector<Area> newareas = new Vector<Area>();
+        final int cnt = areas.size();
         if (horizontal) //horizontal separator
         {
             int sy1 = sep.getY1();
             int sy2 = sep.getY2();
-            for (Iterator<Area> it = areas.iterator(); it.hasNext();)
+            for (int i = 0; i < cnt; i++)
             {
-                Area area = it.next();
+                if (areas.isRemoved(i))
+                    continue;
                 //the separator width must cover the whole area
-                if (sep.getX1() <= area.getX1() && sep.getX2() >= area.getX2())
+                if (sep.getX1() <= areas.getX1(i) && sep.getX2() >= areas.getX2(i))
                 {
-                    int ay1 = area.getY1();
-                    int ay2 = area.getY2();
+                    int ay1 = areas.getY1(i);
+                    int ay2 = areas.getY2(i);
                     //the separator covers the area -- remove the area 
                     if (sy1 <= ay1 && sy2 >= ay2)
                     {
-                        it.remove();
+                        areas.remove(i);
                     }
                     //separator entirely inside -- split the area 
                     else if (sy1 > ay1 && sy2 < ay2)
                     {
-                        AreaImpl newarea = new AreaImpl(area.getX1(), sy1,
-                                                            area.getX2(), area.getY2());
-                        newarea.setPage(area.getPage());
-                        newareas.add(newarea);
-                        area.getBounds().setY2(sy1 - 1);
+                        areas.add(areas.getX1(i), sy1, areas.getX2(i), ay2);
+                        areas.setY2(i, sy1 - 1);
                     }
                     //separator partially covers the area -- update the area
                     else if ((sy1 > ay1 && sy1 < ay2) && sy2 >= ay2)
                     {
-                        area.getBounds().setY2(sy1 - 1);
+                        areas.setY2(i, sy1 - 1);
                     }
                     //separator partially covers the area -- update the area
                     else if (sy1 <= ay1 && (sy2 > ay1 && sy2 < ay2))
                     {
-                        area.getBounds().setY1(sy1);
+                        areas.setY1(i, sy1);
                     }
                 }
             }
@@ -347,46 +435,46 @@ public class SeparatorSetHVS extends SeparatorSet
         {
             int sx1 = sep.getX1();
             int sx2 = sep.getX2();
-            for (Iterator<Area> it = areas.iterator(); it.hasNext();)
+            for (int i = 0; i < cnt; i++)
             {
-                Area area = it.next();
+                if (areas.isRemoved(i))
+                    continue;
                 //the separator height must cover the whole area
-                if (sep.getY1() <= area.getY1() && sep.getY2() >= area.getY2())
+                if (sep.getY1() <= areas.getY1(i) && sep.getY2() >= areas.getY2(i))
                 {
-                    int ax1 = area.getX1();
-                    int ax2 = area.getX2();
+                    int ax1 = areas.getX1(i);
+                    int ax2 = areas.getX2(i);
                     //the separator covers the area -- remove the area 
                     if (sx1 <= ax1 && sx2 >= ax2)
                     {
-                        it.remove();
+                        areas.remove(i);
                     }
                     //separator entirely inside -- split the area 
                     else if (sx1 > ax1 && sx2 < ax2)
                     {
-                        Area newarea = new AreaImpl(sx1, area.getY1(),
-                                                            area.getX2(), area.getY2());
-                        newareas.add(newarea);
-                        area.getBounds().setX2(sx1 - 1);
+                        areas.add(sx1, areas.getY1(i), ax2, areas.getY2(i));
+                        areas.setX2(i, sx1 - 1);
                     }
                     //separator partially covers the area -- update the area
                     else if ((sx1 > ax1 && sx1 < ax2) && sx2 >= ax2)
                     {
-                        area.getBounds().setX2(sx1 - 1);
+                        areas.setX2(i, sx1 - 1);
                     }
                     //separator partially covers the area -- update the area
                     else if (sx1 <= ax1 && (sx2 > ax1 && sx2 < ax2))
                     {
-                        area.getBounds().setX1(sx1);
+                        areas.setX1(i, sx1);
                     }
                 }
             }
         }
-        areas.addAll(newareas);
+        areas.compact();
     }
     
     
     /**
      * Creates new "virtual" visual areas based on detected separators. These areas are further used for detecting more separators.
+     * The areas are split in a primitive store; the area objects are only created for the resulting areas.
      * @param an optional filtering area; only the new sub-areas within this area are considered
      * @return a vector of created visual areas
      */
@@ -394,17 +482,23 @@ public class SeparatorSetHVS extends SeparatorSet
     {
         Area base = (filter == null) ? root : filter;
         
-        Vector<Area> areas = new Vector<Area>();
-        AreaImpl init = new AreaImpl(base.getX1(), base.getY1(), base.getX2(), base.getY2());
-        init.setPage(base.getPage());
-        areas.add(init);
+        SeparatorStore areas = new SeparatorStore();
+        areas.add(base.getX1(), base.getY1(), base.getX2(), base.getY2());
         for (Separator sep : hsep)
             considerSeparator(areas, sep, true);
         for (Separator sep : vsep)
             considerSeparator(areas, sep, false);
         for (Separator sep : bsep)
             considerThinSeparator(areas, sep, sep.getType() == Separator.BOXH);
-        return areas;
+        
+        Vector<Area> ret = new Vector<Area>(areas.size());
+        for (int i = 0; i < areas.size(); i++)
+        {
+            AreaImpl area = new AreaImpl(areas.getX1(i), areas.getY1(i), areas.getX2(i), areas.getY2(i));
+            area.setPage(base.getPage());
+            ret.add(area);
+        }
+        return ret;
     }
         
 }
@@ -0,0 +1,768 @@
+/**
+ * SeparatorSetSweep.java
+ *
+ * Created on 17. 10. 2026, 17:28:33 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.Vector;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.Rectangular;
+import org.fit.segm.grouping.AreaImpl;
+
+/**
+ * A horizontal/vertical separator detection that produces the same separators as {@link SeparatorSetHVS}
+ * (including their order and the separated areas) without its quadratic steps:
+ * <ul>
+ * <li>The separators are kept in a sorted set of disjoint intervals, so that each sub-area only visits
+ * the separators it overlaps instead of all of them.</li>
+ * <li>The virtual areas created from the separators form a grid of strips and columns; the sub-areas are
+ * assigned to the grid cells by a binary search and only the cells containing at least two sub-areas
+ * are further processed.</li>
+ * <li>The box separators are looked up in an index sorted by their position.</li>
+ * <li>The recursion for the virtual areas only considers the sub-areas assigned to the virtual area
+ * instead of going through all the child areas of the root again.</li>
+ * </ul>
+ * The separators are created in the same order as in {@link SeparatorSetHVS}, so the ties are broken
+ * in the same way when the separators are sorted. When some of the sub-areas have a negative size,
+ * the original algorithm is used.
+ *
+ * @author agent
+ */
+public class SeparatorSetSweep extends SeparatorSetHVS
+{
+    private static final Comparator<Interval> BY_START = new Comparator<Interval>() {
+        public int compare(Interval i1, Interval i2)
+        {
+            return Integer.compare(i1.start, i2.start);
+        }
+    };
+
+    private static final Comparator<Member> BY_CELL = new Comparator<Member>() {
+        public int compare(Member m1, Member m2)
+        {
+            if (m1.column.rank != m2.column.rank)
+                return Integer.compare(m1.column.rank, m2.column.rank);
+            else if (m1.strip.rank != m2.strip.rank)
+                return Integer.compare(m1.strip.rank, m2.strip.rank);
+            else
+                return Integer.compare(m1.index, m2.index);
+        }
+    };
+
+    private static final Comparator<Region> BY_CREATION = new Comparator<Region>() {
+        public int compare(Region r1, Region r2)
+        {
+            while (r1.born == r2.born && r1.born != -1)
+            {
+                r1 = r1.parent;
+                r2 = r2.parent;
+            }
+            if (r1.born != r2.born)
+                return Integer.compare(r1.born, r2.born);
+            else
+                return Long.compare(r1.order, r2.order);
+        }
+    };
+
+    /**
+     * Creates a new separator set for the given area.
+     */
+    public SeparatorSetSweep(AreaImpl root)
+    {
+        super(root);
+    }
+
+    /**
+     * Creates a new separator set for the given area.
+     */
+    public SeparatorSetSweep(AreaImpl root, Area filter)
+    {
+        super(root, filter);
+    }
+
+    /**
+     * Creates a new separator set for the given area.
+     * @param root the root area
+     * @param filter if not null, only the sub areas enclosed in the filter area are considered
+     * @param parallel compute the separator sets of the irregular virtual sub-areas in parallel
+     */
+    public SeparatorSetSweep(AreaImpl root, Area filter, boolean parallel)
+    {
+        super(root, filter, parallel);
+    }
+
+    //=====================================================================================
+
+    @Override
+    protected void findSeparators(AreaImpl area, Area filter)
+    {
+        Area base = (filter == null) ? area : filter;
+        List<AreaImpl> subs = new ArrayList<AreaImpl>(area.getChildCount());
+        boolean regular = base.getX1() <= base.getX2() && base.getY1() <= base.getY2();
+        for (int i = 0; i < area.getChildCount(); i++)
+        {
+            Area sub = area.getChildAt(i);
+            if (sub instanceof AreaImpl && (filter == null || filter.getBounds().encloses(sub.getBounds()))
+                    && !sub.isHorizontalSeparator() && !sub.isVerticalSeparator())
+            {
+                subs.add((AreaImpl) sub);
+                regular = regular && sub.getX2() >= sub.getX1() - 1 && sub.getY2() >= sub.getY1() - 1;
+            }
+        }
+
+        if (regular)
+        {
+            hsep = new Vector<Separator>();
+            vsep = new Vector<Separator>();
+            Rectangular bounds = new Rectangular(base.getX1(), base.getY1(), base.getX2(), base.getY2());
+            findSeparators(bounds, subs, new BoxSeparatorIndex(bsep), hsep, vsep);
+            applyRegularFilters();
+        }
+        else
+            super.findSeparators(area, filter); //the intervals would overlap; use the original algorithm
+    }
+
+    /**
+     * Finds the separators in a (virtual) area and recursively in the virtual areas created
+     * from the separators found.
+     * @param base the bounds of the processed area
+     * @param subs the sub-areas enclosed in the processed area in the document order
+     * @param boxseps the index of the box separators
+     * @param hdest the destination list of the horizontal separators
+     * @param vdest the destination list of the vertical separators
+     */
+    private void findSeparators(Rectangular base, List<AreaImpl> subs, BoxSeparatorIndex boxseps,
+                                List<Separator> hdest, List<Separator> vdest)
+    {
+        if (subs.size() > 1)
+        {
+            Vector<Separator> hs = findGaps(base, subs, true);
+            Vector<Separator> vs = findGaps(base, subs, false);
+            filterSeparators(hs, vs);
+            hdest.addAll(hs);
+            vdest.addAll(vs);
+            for (Region region : createRegions(base, subs, hs, vs, boxseps))
+                findSeparators(region.bounds, region.subs, boxseps, hdest, vdest);
+        }
+    }
+
+    /**
+     * Finds the intervals of the base area that are not covered by any of the sub-areas.
+     * @param base the area to be split
+     * @param subs the sub-areas in the document order
+     * @param horizontal when {@code true}, the horizontal separators (gaps in the Y axis) are found,
+     * otherwise the vertical ones are found
+     * @return the list of separators in the order of their creation by {@link SeparatorSetHVS}
+     */
+    private Vector<Separator> findGaps(Rectangular base, List<AreaImpl> subs, boolean horizontal)
+    {
+        IntervalSet gaps = horizontal ? new IntervalSet(base.getY1(), base.getY2())
+                                      : new IntervalSet(base.getX1(), base.getX2());
+        for (AreaImpl sub : subs)
+        {
+            if (horizontal)
+                gaps.cut(sub.getY1(), sub.getY2(), sub);
+            else
+                gaps.cut(sub.getX1(), sub.getX2(), sub);
+        }
+
+        Vector<Separator> ret = new Vector<Separator>(gaps.created.size());
+        for (Interval gap : gaps.created)
+        {
+            if (!gap.removed)
+            {
+                Separator sep;
+                if (horizontal)
+                    sep = new Separator(Separator.HORIZONTAL, base.getX1(), gap.start, base.getX2(), gap.end);
+                else
+                    sep = new Separator(Separator.VERTICAL, gap.start, base.getY1(), gap.end, base.getY2());
+                sep.setArea1(gap.area1);
+                sep.setArea2(gap.area2);
+                ret.add(sep);
+            }
+        }
+        return ret;
+    }
+
+    //=====================================================================================
+
+    /**
+     * Creates the virtual areas that contain at least two sub-areas. This corresponds to the virtual areas
+     * created by {@link SeparatorSetHVS} that produce some new separators.
+     * @param base the bounds of the processed area
+     * @param subs the sub-areas enclosed in the processed area in the document order
+     * @param hs the horizontal separators found in the area
+     * @param vs the vertical separators found in the area
+     * @param boxseps the index of the box separators
+     * @return the virtual areas in the order of their creation by {@link SeparatorSetHVS} or an empty list
+     * when the area is not split
+     */
+    private List<Region> createRegions(Rectangular base, List<AreaImpl> subs, List<Separator> hs, List<Separator> vs,
+                                       BoxSeparatorIndex boxseps)
+    {
+        //the horizontal separators split the area to strips, the vertical ones split all the strips to columns
+        IntervalSet strips = new IntervalSet(base.getY1(), base.getY2());
+        for (Separator sep : hs)
+            strips.cut(sep.getY1(), sep.getY2(), null);
+        IntervalSet columns = new IntervalSet(base.getX1(), base.getX2());
+        for (Separator sep : vs)
+            columns.cut(sep.getX1(), sep.getX2(), null);
+        Interval[] stripList = strips.rank();
+        Interval[] columnList = columns.rank();
+
+        //assign the sub-areas to the grid cells they are enclosed in
+        List<Member> members = new ArrayList<Member>(subs.size());
+        for (int i = 0; i < subs.size(); i++)
+        {
+            AreaImpl sub = subs.get(i);
+            for (Interval strip = strips.floor(sub.getY1()); strip != null && strip.end >= sub.getY2(); strip = strips.lower(strip))
+            {
+                for (Interval col = columns.floor(sub.getX1()); col != null && col.end >= sub.getX2(); col = columns.lower(col))
+                    members.add(new Member(col, strip, i));
+            }
+        }
+        Collections.sort(members, BY_CELL);
+
+        //split the cells with at least two sub-areas by the box separators
+        List<Region> ret = new ArrayList<Region>();
+        long[] processed = new long[members.size() / 2];
+        int pcnt = 0;
+        int total = 0;
+        for (int i = 0; i < members.size(); )
+        {
+            Member first = members.get(i);
+            int j = i + 1;
+            while (j < members.size() && members.get(j).column == first.column && members.get(j).strip == first.strip)
+                j++;
+            if (j - i > 1)
+            {
+                Region cell = createCell(first.column, first.strip, stripList.length);
+                cell.subs = new ArrayList<AreaImpl>(j - i);
+                for (int k = i; k < j; k++)
+                    cell.subs.add(subs.get(members.get(k).index));
+                List<Region> pieces = split(cell, boxseps);
+                total += pieces.size();
+                for (Region piece : pieces)
+                {
+                    if (piece.subs.size() > 1)
+                        ret.add(piece);
+                }
+                processed[pcnt++] = cell.order;
+            }
+            i = j;
+        }
+
+        //the virtual areas are only processed when there are more of them
+        if (ret.size() == 1 && total == 1 && !hasOtherRegion(base, columnList, stripList, processed, pcnt, boxseps))
+            ret.clear();
+        Collections.sort(ret, BY_CREATION);
+        return ret;
+    }
+
+    /**
+     * Checks whether any grid cell that has not been processed yet produces a virtual area. A cell
+     * that is not touched by any box separator always produces a virtual area; therefore, the cells
+     * are only checked one by one when the box separators touch at least as many cells as remain.
+     * The cost is then bounded by the number of the touched cells.
+     * @param base the bounds of the processed area
+     * @param columnList the grid columns ordered by their rank
+     * @param stripList the grid strips ordered by their rank
+     * @param processed the orders of the cells that have been processed already (ascending)
+     * @param pcnt the number of the processed cells
+     * @param boxseps the index of the box separators
+     * @return {@code true} when a virtual area remains in some of the remaining cells
+     */
+    private boolean hasOtherRegion(Rectangular base, Interval[] columnList, Interval[] stripList, long[] processed, int pcnt,
+                                   BoxSeparatorIndex boxseps)
+    {
+        final long remaining = (long) columnList.length * stripList.length - pcnt;
+        if (remaining > countTouchedCells(base, columnList, stripList, boxseps, remaining))
+            return true;
+        int next = 0;
+        for (Interval col : columnList)
+        {
+            for (Interval strip : stripList)
+            {
+                Region cell = createCell(col, strip, stripList.length);
+                if (next < pcnt && processed[next] == cell.order)
+                    next++;
+                else
+                {
+                    cell.subs = Collections.emptyList();
+                    if (!split(cell, boxseps).isEmpty())
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the grid cells touched by the box separators in the processed area. A cell touched by
+     * several separators is counted several times.
+     * @param base the bounds of the processed area
+     * @param columnList the grid columns
+     * @param stripList the grid strips
+     * @param boxseps the index of the box separators
+     * @param limit the counting stops when this number is reached
+     * @return the number of the touched cells or a number not less than {@code limit}
+     */
+    private long countTouchedCells(Rectangular base, Interval[] columnList, Interval[] stripList,
+                                   BoxSeparatorIndex boxseps, long limit)
+    {
+        final int[] found = boxseps.find(base);
+        if (found.length == 0)
+            return 0;
+        final Interval[] cols = columnList.clone();
+        Arrays.sort(cols, BY_START);
+        final Interval[] strips = stripList.clone();
+        Arrays.sort(strips, BY_START);
+        long ret = 0;
+        for (int i = 0; i < found.length && ret < limit; i++)
+        {
+            final Separator sep = boxseps.get(found[i]);
+            ret += (long) countOverlapping(cols, sep.getX1(), sep.getX2())
+                    * countOverlapping(strips, sep.getY1(), sep.getY2());
+        }
+        return ret;
+    }
+
+    /**
+     * Counts the intervals that overlap the given range.
+     * @param intervals disjoint intervals sorted by their start
+     * @param lo the first coordinate of the range
+     * @param hi the last coordinate of the range
+     * @return the number of the overlapping intervals
+     */
+    private static int countOverlapping(Interval[] intervals, int lo, int hi)
+    {
+        //the first interval ending at lo or later
+        int l = 0, h = intervals.length;
+        while (l < h)
+        {
+            final int m = (l + h) >>> 1;
+            if (intervals[m].end < lo)
+                l = m + 1;
+            else
+                h = m;
+        }
+        final int first = l;
+        //the first interval starting after hi
+        h = intervals.length;
+        while (l < h)
+        {
+            final int m = (l + h) >>> 1;
+            if (intervals[m].start <= hi)
+                l = m + 1;
+            else
+                h = m;
+        }
+        return l - first;
+    }
+
+    private Region createCell(Interval col, Interval strip, int stripCount)
+    {
+        Region cell = new Region(new Rectangular(col.start, strip.start, col.end, strip.end));
+        cell.born = -1;
+        cell.order = (long) col.rank * stripCount + strip.rank;
+        return cell;
+    }
+
+    /**
+     * Splits a grid cell by the box separators in the same way as the thin separators split the virtual
+     * areas in {@link SeparatorSetHVS}. The box separators are {@link #ART_SEP_WIDTH} pixels thick; therefore,
+     * a separator may only remove or split the area and the resulting areas never exceed the cell.
+     * @param cell the grid cell
+     * @param boxseps the index of the box separators
+     * @return the resulting virtual areas
+     */
+    private List<Region> split(Region cell, BoxSeparatorIndex boxseps)
+    {
+        List<Region> pieces = new ArrayList<Region>(1);
+        pieces.add(cell);
+        for (int index : boxseps.find(cell.bounds))
+        {
+            final Separator sep = boxseps.get(index);
+            final boolean horizontal = sep.getType() == Separator.BOXH;
+            List<Region> newpieces = null;
+            for (Iterator<Region> it = pieces.iterator(); it.hasNext();)
+            {
+                Region piece = it.next();
+                Rectangular r = piece.bounds;
+                if (horizontal && sep.getX1() <= r.getX1() && sep.getX2() >= r.getX2())
+                {
+                    final int sy1 = sep.getY1();
+                    final int sy2 = sep.getY2();
+                    final int ay1 = r.getY1();
+                    final int ay2 = r.getY2();
+                    if (sy1 <= ay1 && sy2 >= ay2)
+                        it.remove();
+                    else if (sy1 > ay1 && sy2 < ay2)
+                    {
+                        Region np = piece.split(new Rectangular(r.getX1(), sy1, r.getX2(), ay2), index);
+                        r.setY2(sy1 - 1);
+                        piece.update();
+                        if (newpieces == null)
+                            newpieces = new ArrayList<Region>();
+                        newpieces.add(np);
+                    }
+                    else if ((sy1 > ay1 && sy1 < ay2) && sy2 >= ay2)
+                    {
+                        r.setY2(sy1 - 1);
+                        piece.update();
+                    }
+                    else if (sy1 <= ay1 && (sy2 > ay1 && sy2 < ay2))
+                    {
+                        r.setY1(sy1);
+                        piece.update();
+                    }
+                }
+                else if (!horizontal && sep.getY1() <= r.getY1() && sep.getY2() >= r.getY2())
+                {
+                    final int sx1 = sep.getX1();
+                    final int sx2 = sep.getX2();
+                    final int ax1 = r.getX1();
+                    final int ax2 = r.getX2();
+                    if (sx1 <= ax1 && sx2 >= ax2)
+                        it.remove();
+                    else if (sx1 > ax1 && sx2 < ax2)
+                    {
+                        Region np = piece.split(new Rectangular(sx1, r.getY1(), ax2, r.getY2()), index);
+                        r.setX2(sx1 - 1);
+                        piece.update();
+                        if (newpieces == null)
+                            newpieces = new ArrayList<Region>();
+                        newpieces.add(np);
+                    }
+                    else if ((sx1 > ax1 && sx1 < ax2) && sx2 >= ax2)
+                    {
+                        r.setX2(sx1 - 1);
+                        piece.update();
+                    }
+                    else if (sx1 <= ax1 && (sx2 > ax1 && sx2 < ax2))
+                    {
+                        r.setX1(sx1);
+                        piece.update();
+                    }
+                }
+            }
+            if (newpieces != null)
+                pieces.addAll(newpieces);
+        }
+        return pieces;
+    }
+
+    //=====================================================================================
+
+    /**
+     * An interval of coordinates in one axis. It represents either a whitespace gap between the sub-areas
+     * or a strip (column) of the virtual areas.
+     */
+    private static class Interval
+    {
+        int start;
+        int end;
+        /** The area that bounds the interval from the top (left) if any */
+        AreaImpl area1;
+        /** The area that bounds the interval from the bottom (right) if any */
+        AreaImpl area2;
+        boolean removed;
+        /** The order of the interval among the remaining intervals */
+        int rank;
+
+        Interval(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * A set of disjoint intervals that are split by the covering ranges using the same rules
+     * as the separators and virtual areas are split in {@link SeparatorSetHVS}.
+     */
+    private static class IntervalSet
+    {
+        /** The remaining intervals sorted by their start */
+        private final TreeSet<Interval> alive;
+        /** All the intervals in the order of creation */
+        final List<Interval> created;
+        /** The interval used for the lookups */
+        private final Interval probe;
+
+        IntervalSet(int start, int end)
+        {
+            alive = new TreeSet<Interval>(BY_START);
+            created = new ArrayList<Interval>();
+            probe = new Interval(0, 0);
+            Interval init = new Interval(start, end);
+            alive.add(init);
+            created.add(init);
+        }
+
+        /**
+         * Removes a range from the intervals. The intervals are updated in the same way
+         * the separators are updated by a new area in {@link SeparatorSetHVS}.
+         * @param lo the first coordinate of the range
+         * @param hi the last coordinate of the range
+         * @param area the area that covers the range (used as the bounding area of the intervals)
+         */
+        void cut(int lo, int hi, AreaImpl area)
+        {
+            Interval cur = floor(lo);
+            if (cur == null || cur.end < lo)
+                cur = alive.higher(probe);
+            while (cur != null && cur.start <= hi)
+            {
+                final Interval next = alive.higher(cur);
+                //the range covers the interval -- remove the interval
+                if (lo <= cur.start && hi >= cur.end)
+                {
+                    alive.remove(cur);
+                    cur.removed = true;
+                }
+                //the range entirely inside -- split the interval
+                else if (lo > cur.start && hi < cur.end)
+                {
+                    Interval ni = new Interval(hi + 1, cur.end);
+                    ni.area1 = area;
+                    cur.end = lo - 1;
+                    cur.area2 = area;
+                    alive.add(ni);
+                    created.add(ni);
+                }
+                //the range partially covers the interval -- update the interval
+                else if ((lo > cur.start && lo <= cur.end) && hi >= cur.end)
+                {
+                    cur.end = lo - 1;
+                    cur.area2 = area;
+                }
+                //the range partially covers the interval -- update the interval
+                else if (lo <= cur.start && (hi >= cur.start && hi < cur.end))
+                {
+                    alive.remove(cur);
+                    cur.start = hi + 1;
+                    cur.area1 = area;
+                    alive.add(cur);
+                }
+                cur = next;
+            }
+        }
+
+        /**
+         * @return the remaining interval with the greatest start not exceeding the given coordinate
+         */
+        Interval floor(int coord)
+        {
+            probe.start = coord;
+            return alive.floor(probe);
+        }
+
+        Interval lower(Interval interval)
+        {
+            return alive.lower(interval);
+        }
+
+        /**
+         * Assigns the ranks to the remaining intervals according to their order of creation.
+         * @return the remaining intervals ordered by their rank
+         */
+        Interval[] rank()
+        {
+            Interval[] ret = new Interval[alive.size()];
+            int rank = 0;
+            for (Interval interval : created)
+            {
+                if (!interval.removed)
+                {
+                    interval.rank = rank;
+                    ret[rank++] = interval;
+                }
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * A sub-area assigned to a grid cell.
+     */
+    private static class Member
+    {
+        final Interval column;
+        final Interval strip;
+        /** The index of the sub-area */
+        final int index;
+
+        Member(Interval column, Interval strip, int index)
+        {
+            this.column = column;
+            this.strip = strip;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A virtual area together with the sub-areas it encloses.
+     */
+    private static class Region
+    {
+        final Rectangular bounds;
+        List<AreaImpl> subs;
+        /** The index of the box separator that created the area or -1 for a grid cell */
+        int born;
+        /** The area that has been split when this area was created by a box separator */
+        Region parent;
+        /** The order of a grid cell */
+        long order;
+
+        Region(Rectangular bounds)
+        {
+            this.bounds = bounds;
+        }
+
+        /**
+         * Creates a new area split from this area by a box separator.
+         */
+        Region split(Rectangular r, int index)
+        {
+            Region ret = new Region(r);
+            ret.born = index;
+            ret.parent = this;
+            ret.subs = enclosed(subs, r);
+            return ret;
+        }
+
+        /**
+         * Updates the enclosed sub-areas after the bounds have been reduced.
+         */
+        void update()
+        {
+            subs = enclosed(subs, bounds);
+        }
+
+        private static List<AreaImpl> enclosed(List<AreaImpl> src, Rectangular r)
+        {
+            List<AreaImpl> ret = new ArrayList<AreaImpl>(src.size());
+            for (AreaImpl sub : src)
+            {
+                if (r.encloses(sub.getBounds()))
+                    ret.add(sub);
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * The box separators sorted by their position for looking up the separators that may split an area.
+     */
+    private static class BoxSeparatorIndex
+    {
+        private final List<Separator> seps;
+        /** The top edges of the horizontal separators (ascending) */
+        private final int[] hpos;
+        /** The indices of the horizontal separators in the order of {@link #hpos} */
+        private final int[] hindex;
+        /** The left edges of the vertical separators (ascending) */
+        private final int[] vpos;
+        /** The indices of the vertical separators in the order of {@link #vpos} */
+        private final int[] vindex;
+
+        BoxSeparatorIndex(List<Separator> seps)
+        {
+            this.seps = seps;
+            long[] hkeys = new long[seps.size()];
+            long[] vkeys = new long[seps.size()];
+            int hcnt = 0;
+            int vcnt = 0;
+            for (int i = 0; i < seps.size(); i++)
+            {
+                //the position in the upper bits, the index in the lower bits
+                final Separator sep = seps.get(i);
+                if (sep.getType() == Separator.BOXH)
+                    hkeys[hcnt++] = ((long) sep.getY1() << 32) | i;
+                else
+                    vkeys[vcnt++] = ((long) sep.getX1() << 32) | i;
+            }
+            Arrays.sort(hkeys, 0, hcnt);
+            Arrays.sort(vkeys, 0, vcnt);
+            hpos = new int[hcnt];
+            hindex = new int[hcnt];
+            for (int i = 0; i < hcnt; i++)
+            {
+                hpos[i] = (int) (hkeys[i] >> 32);
+                hindex[i] = (int) hkeys[i];
+            }
+            vpos = new int[vcnt];
+            vindex = new int[vcnt];
+            for (int i = 0; i < vcnt; i++)
+            {
+                vpos[i] = (int) (vkeys[i] >> 32);
+                vindex[i] = (int) vkeys[i];
+            }
+        }
+
+        Separator get(int index)
+        {
+            return seps.get(index);
+        }
+
+        /**
+         * Finds the separators that intersect the given area.
+         * @param r the area bounds
+         * @return the separator indices in ascending order
+         */
+        int[] find(Rectangular r)
+        {
+            int[] ret = new int[8];
+            int cnt = 0;
+            for (int i = lowerBound(hpos, r.getY1() - ART_SEP_WIDTH + 1); i < hpos.length && hpos[i] <= r.getY2(); i++)
+            {
+                final Separator sep = seps.get(hindex[i]);
+                if (sep.getX1() <= r.getX2() && sep.getX2() >= r.getX1())
+                {
+                    if (cnt == ret.length)
+                        ret = Arrays.copyOf(ret, cnt * 2);
+                    ret[cnt++] = hindex[i];
+                }
+            }
+            for (int i = lowerBound(vpos, r.getX1() - ART_SEP_WIDTH + 1); i < vpos.length && vpos[i] <= r.getX2(); i++)
+            {
+                final Separator sep = seps.get(vindex[i]);
+                if (sep.getY1() <= r.getY2() && sep.getY2() >= r.getY1())
+                {
+                    if (cnt == ret.length)
+                        ret = Arrays.copyOf(ret, cnt * 2);
+                    ret[cnt++] = vindex[i];
+                }
+            }
+            ret = Arrays.copyOf(ret, cnt);
+            Arrays.sort(ret);
+            return ret;
+        }
+
+        private static int lowerBound(int[] values, int key)
+        {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi)
+            {
+                final int mid = (lo + hi) >>> 1;
+                if (values[mid] < key)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+
+}
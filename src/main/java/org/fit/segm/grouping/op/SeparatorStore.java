@@ -0,0 +1,303 @@
+/**
+ * SeparatorStore.java
+ *
+ * Created on 17. 10. 2026, 17:29:52 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Vector;
+
+import org.fit.layout.model.Area;
+import org.fit.segm.grouping.AreaImpl;
+
+/**
+ * A compact storage of separators used internally by {@link SeparatorSetHVS} while the separators
+ * and the virtual areas are being split. The separators are stored in parallel primitive arrays and
+ * the separated areas are referenced by their child index in the processed root area. No objects are
+ * allocated when the separators are added, modified or removed (except for growing the arrays).
+ * The store is only used for the splitting loops: the {@link Separator} objects are created by
+ * {@link #toSeparators(AreaImpl)} once the sub-areas have been considered and the filters, the recursion
+ * and the callers work on these objects. The store may also hold plain rectangles (e.g. the virtual areas)
+ * added by {@link #add(int, int, int, int)}.
+ *
+ * @author agent
+ */
+public class SeparatorStore
+{
+    /** The type used for marking the removed separators */
+    private static final short REMOVED = -1;
+    
+    /** The type used for the plain rectangles that are not separators */
+    public static final short RECTANGLE = -2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private short[] type;
+    private int[] x1;
+    private int[] y1;
+    private int[] x2;
+    private int[] y2;
+    /** Child index of the left (top) separated area or -1 */
+    private int[] area1;
+    /** Child index of the bottom (right) separated area or -1 */
+    private int[] area2;
+
+    private int size;
+    private int removedCount;
+
+
+    /**
+     * Creates an empty store.
+     */
+    public SeparatorStore()
+    {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with the given initial capacity.
+     * @param capacity the initial capacity
+     */
+    public SeparatorStore(int capacity)
+    {
+        capacity = Math.max(capacity, 1);
+        type = new short[capacity];
+        x1 = new int[capacity];
+        y1 = new int[capacity];
+        x2 = new int[capacity];
+        y2 = new int[capacity];
+        area1 = new int[capacity];
+        area2 = new int[capacity];
+        size = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Creates a store containing the given separators.
+     * @param src the source separators
+     * @param root the root area whose child areas are referenced by the separators
+     */
+    public SeparatorStore(Collection<Separator> src, AreaImpl root)
+    {
+        this(Math.max(src.size() * 2, INITIAL_CAPACITY));
+        for (Separator sep : src)
+        {
+            int i = add(sep.getType(), sep.getX1(), sep.getY1(), sep.getX2(), sep.getY2());
+            area1[i] = areaIndex(root, sep.getArea1());
+            area2[i] = areaIndex(root, sep.getArea2());
+        }
+    }
+
+    /**
+     * Returns the number of slots used in the store including the removed separators.
+     * The valid indices are {@code 0 .. size()-1}; use {@link #isRemoved(int)} for skipping
+     * the removed ones.
+     * @return the number of slots used
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the number of separators that have not been removed
+     */
+    public int count()
+    {
+        return size - removedCount;
+    }
+
+    /**
+     * Adds a new separator with no separated areas.
+     * @return the index of the new separator
+     */
+    public int add(short stype, int sx1, int sy1, int sx2, int sy2)
+    {
+        if (size == type.length)
+            grow();
+        type[size] = stype;
+        x1[size] = sx1;
+        y1[size] = sy1;
+        x2[size] = sx2;
+        y2[size] = sy2;
+        area1[size] = -1;
+        area2[size] = -1;
+        return size++;
+    }
+
+    /**
+     * Adds a new plain rectangle of the {@link #RECTANGLE} type.
+     * @return the index of the new rectangle
+     */
+    public int add(int sx1, int sy1, int sx2, int sy2)
+    {
+        return add(RECTANGLE, sx1, sy1, sx2, sy2);
+    }
+
+    /**
+     * Marks the separator as removed. The index of the remaining separators is not changed
+     * until {@link #compact()} is called.
+     * @param i the separator index
+     */
+    public void remove(int i)
+    {
+        if (type[i] != REMOVED)
+        {
+            type[i] = REMOVED;
+            removedCount++;
+        }
+    }
+
+    public boolean isRemoved(int i)
+    {
+        return type[i] == REMOVED;
+    }
+
+    /**
+     * Discards the removed separators while preserving the order of the remaining ones.
+     */
+    public void compact()
+    {
+        if (removedCount > 0)
+        {
+            int dst = 0;
+            for (int i = 0; i < size; i++)
+            {
+                if (type[i] != REMOVED)
+                {
+                    if (dst != i)
+                    {
+                        type[dst] = type[i];
+                        x1[dst] = x1[i];
+                        y1[dst] = y1[i];
+                        x2[dst] = x2[i];
+                        y2[dst] = y2[i];
+                        area1[dst] = area1[i];
+                        area2[dst] = area2[i];
+                    }
+                    dst++;
+                }
+            }
+            size = dst;
+            removedCount = 0;
+        }
+    }
+
+    //=====================================================================================
+
+    public short getType(int i)
+    {
+        return type[i];
+    }
+
+    public int getX1(int i)
+    {
+        return x1[i];
+    }
+
+    public int getY1(int i)
+    {
+        return y1[i];
+    }
+
+    public int getX2(int i)
+    {
+        return x2[i];
+    }
+
+    public int getY2(int i)
+    {
+        return y2[i];
+    }
+
+    public void setX1(int i, int value)
+    {
+        x1[i] = value;
+    }
+
+    public void setY1(int i, int value)
+    {
+        y1[i] = value;
+    }
+
+    public void setX2(int i, int value)
+    {
+        x2[i] = value;
+    }
+
+    public void setY2(int i, int value)
+    {
+        y2[i] = value;
+    }
+
+    /**
+     * @return the child index of the left (top) separated area or -1 when not set
+     */
+    public int getArea1(int i)
+    {
+        return area1[i];
+    }
+
+    public void setArea1(int i, int childIndex)
+    {
+        area1[i] = childIndex;
+    }
+
+    /**
+     * @return the child index of the bottom (right) separated area or -1 when not set
+     */
+    public int getArea2(int i)
+    {
+        return area2[i];
+    }
+
+    public void setArea2(int i, int childIndex)
+    {
+        area2[i] = childIndex;
+    }
+
+    //=====================================================================================
+
+    /**
+     * Creates the separator objects for all the separators that have not been removed.
+     * @param root the root area whose child areas are referenced by the separators
+     * @return a vector of separators in the store order
+     */
+    public Vector<Separator> toSeparators(AreaImpl root)
+    {
+        Vector<Separator> ret = new Vector<Separator>(count());
+        for (int i = 0; i < size; i++)
+        {
+            if (type[i] != REMOVED)
+            {
+                Separator sep = new Separator(type[i], x1[i], y1[i], x2[i], y2[i]);
+                if (area1[i] != -1)
+                    sep.setArea1((AreaImpl) root.getChildAt(area1[i]));
+                if (area2[i] != -1)
+                    sep.setArea2((AreaImpl) root.getChildAt(area2[i]));
+                ret.add(sep);
+            }
+        }
+        return ret;
+    }
+
+    private int areaIndex(AreaImpl root, Area area)
+    {
+        return (area == null) ? -1 : root.getIndex(area);
+    }
+
+    private void grow()
+    {
+        int capacity = type.length * 2;
+        type = Arrays.copyOf(type, capacity);
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        area1 = Arrays.copyOf(area1, capacity);
+        area2 = Arrays.copyOf(area2, capacity);
+    }
+
+}
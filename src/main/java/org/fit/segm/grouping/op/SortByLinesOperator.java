@@ -5,16 +5,16 @@
  */
 package org.fit.segm.grouping.op;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
 
 import org.fit.layout.api.Parameter;
 import org.fit.layout.model.Area;
-import org.fit.layout.model.AreaTopology;
 import org.fit.layout.model.AreaTree;
 import org.fit.segm.grouping.AreaImpl;
 import org.fit.segm.grouping.AreaUtils;
+import org.fit.segm.grouping.OccupancyGrid;
 
 /**
  * 
@@ -49,7 +49,14 @@ public class SortByLinesOperator extends SortByPositionOperator
     @Override
     public List<Parameter> defineParams()
     {
-        return Collections.emptyList();
+        //the areas are always sorted by rows first
+        List<Parameter> ret = new ArrayList<>(2);
+        for (Parameter param : super.defineParams())
+        {
+            if (!"columnFirst".equals(param.getName()))
+                ret.add(param);
+        }
+        return ret;
     }
     
     //==============================================================================
@@ -63,8 +70,31 @@ public class SortByLinesOperator extends SortByPositionOperator
     @Override
     public void apply(AreaTree atree, Area root)
     {
-        recursivelySortChildAreas(root, false);
-        recursiveSortLines((AreaImpl) root);
+        recursivelySortAreasAndLines(root);
+    }
+    
+    /**
+     * Sorts the child areas of all the areas in the subtree by their position and then by lines.
+     * The child subtrees are processed in parallel when the parallel mode is enabled.
+     */
+    private void recursivelySortAreasAndLines(Area root)
+    {
+        processNode(root);
+        processChildSubtrees(root);
+    }
+    
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursivelySortAreasAndLines(root);
+    }
+    
+    @Override
+    protected void processNode(Area node)
+    {
+        //sorting the child areas of a node does not depend on the order of the deeper areas
+        sortChildAreas(node, false);
+        sortChildLines((AreaImpl) node);
     }
     
     //==============================================================================
@@ -111,16 +141,15 @@ public class SortByLinesOperator extends SortByPositionOperator
         final int ny1 = area.getGridPosition().getY1();
         final int nx2 = area.getGridPosition().getX2();
         final int ny2 = area.getGridPosition().getY2();
-        final AreaTopology t = parent.getTopology();
+        final OccupancyGrid g = parent.getOccupancyGrid();
         
-        //try to expand to the right
-        int dist = 1;
-        while (nx2 + dist < t.getTopologyWidth())
+        //try to expand to the right (skip the empty columns)
+        for (int x = g.nextOccupiedColumn(nx2 + 1, ny1, ny2); x != -1; x = g.nextOccupiedColumn(x + 1, ny1, ny2))
         {
             //try to find some node at the right in the given distance
             for (int y = ny1; y <= ny2; y++)
             {
-                AreaImpl neigh = (AreaImpl) t.findAreaAt(nx2 + dist, y);
+                AreaImpl neigh = (AreaImpl) g.getAreaAt(x, y);
                 if (neigh != null && candidates.contains(neigh)) //something found
                 {
                     //the maximal Y difference to consider other areas to be on the same line
@@ -134,16 +163,14 @@ public class SortByLinesOperator extends SortByPositionOperator
                     }
                 }
             }
-            dist++;
         }
-        //try to expand to the left
-        dist = 1;
-        while (nx1 - dist >= 0)
+        //try to expand to the left (skip the empty columns)
+        for (int x = g.prevOccupiedColumn(nx1 - 1, ny1, ny2); x != -1; x = g.prevOccupiedColumn(x - 1, ny1, ny2))
         {
             //try to find some node at the right in the given distance
             for (int y = ny1; y <= ny2; y++)
             {
-                AreaImpl neigh = (AreaImpl) t.findAreaAt(nx1 - dist, y);
+                AreaImpl neigh = (AreaImpl) g.getAreaAt(x, y);
                 if (neigh != null && candidates.contains(neigh)) //something found
                 {
                     //the maximal Y difference to consider other areas to be on the same line
@@ -157,7 +184,6 @@ public class SortByLinesOperator extends SortByPositionOperator
                     }
                 }
             }
-            dist++;
         }
             
         return ret;
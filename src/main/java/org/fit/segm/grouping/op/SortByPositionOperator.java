@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.Vector;
 
 import org.fit.layout.api.Parameter;
-import org.fit.layout.impl.BaseOperator;
 import org.fit.layout.impl.ParameterBoolean;
 import org.fit.layout.model.Area;
 import org.fit.layout.model.AreaTree;
@@ -21,7 +20,7 @@ import org.fit.layout.model.AreaTree;
  * 
  * @author burgetr
  */
-public class SortByPositionOperator extends BaseOperator
+public class SortByPositionOperator extends FusableOperator
 {
     protected boolean columnFirst;
     
@@ -62,8 +61,9 @@ public class SortByPositionOperator extends BaseOperator
     @Override
     public List<Parameter> defineParams()
     {
-        List<Parameter> ret = new ArrayList<>(1);
+        List<Parameter> ret = new ArrayList<>(3);
         ret.add(new ParameterBoolean("columnFirst"));
+        ret.addAll(super.defineParams());
         return ret;
     }
 
@@ -94,6 +94,36 @@ public class SortByPositionOperator extends BaseOperator
     //==============================================================================
     
     protected void recursivelySortChildAreas(Area root, final boolean columnFirst)
+    {
+        sortChildAreas(root, columnFirst);
+        processChildSubtrees(root);
+    }
+
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursivelySortChildAreas(root, columnFirst);
+    }
+
+    @Override
+    public Traversal getTraversal()
+    {
+        return Traversal.PRE_ORDER;
+    }
+
+    @Override
+    public boolean isRestructuring()
+    {
+        return false; //only the order of the child areas is changed
+    }
+
+    @Override
+    protected void processNode(Area node)
+    {
+        sortChildAreas(node, columnFirst);
+    }
+
+    protected void sortChildAreas(Area root, final boolean columnFirst)
     {
         if (root.getChildCount() > 1)
         {
@@ -111,9 +141,6 @@ public class SortByPositionOperator extends BaseOperator
             root.removeAllChildren();
             root.appendChildren(list);
         }
-        for (int i = 0; i < root.getChildCount(); i++)
-            recursivelySortChildAreas(root.getChildAt(i), columnFirst);
-        
     }
 
 }
@@ -0,0 +1,184 @@
+/**
+ * SubtreeOperator.java
+ *
+ * Created on 17. 10. 2026, 17:36:11 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.fit.layout.api.Parameter;
+import org.fit.layout.impl.BaseOperator;
+import org.fit.layout.impl.ParameterBoolean;
+import org.fit.layout.impl.ParameterInt;
+import org.fit.layout.model.Area;
+
+/**
+ * A base of the operators that process the child subtrees of an area independently. When the parallel
+ * mode is enabled, the child subtrees that contain at least {@code parallelThreshold} areas
+ * are processed as fork/join tasks in the current fork/join pool or in the common pool;
+ * the smaller subtrees are processed in the current thread.
+ * <p>
+ * The operators that process the tree node by node should extend {@link FusableOperator}
+ * so that they may be fused into a single tree traversal by {@link OperatorPipeline}.
+ *
+ * @author agent
+ */
+public abstract class SubtreeOperator extends BaseOperator
+{
+    /** Process the large child subtrees in parallel? */
+    protected boolean parallel;
+
+    /** The minimal number of areas in a subtree for processing it as a separate task */
+    protected int parallelThreshold;
+
+
+    public SubtreeOperator()
+    {
+        parallel = false;
+        parallelThreshold = 500;
+    }
+
+    @Override
+    public List<Parameter> defineParams()
+    {
+        List<Parameter> ret = new ArrayList<>(2);
+        ret.add(new ParameterBoolean("parallel"));
+        ret.add(new ParameterInt("parallelThreshold"));
+        return ret;
+    }
+
+    public boolean getParallel()
+    {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+    }
+
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold)
+    {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    //==============================================================================
+
+    /**
+     * Processes the given subtree. This is called for every child area of the area passed
+     * to {@link #processChildSubtrees(Area)}. The implementation must not modify anything
+     * outside of the subtree.
+     * @param root the root of the subtree
+     */
+    protected abstract void processSubtree(Area root);
+
+    /**
+     * Calls {@link #processSubtree(Area)} for all the child areas of the given area. In the parallel
+     * mode, the large subtrees are processed concurrently and the method returns when all
+     * of them are finished.
+     * @param root the parent area
+     */
+    protected void processChildSubtrees(Area root)
+    {
+        if (parallel && root.getChildCount() > 1)
+        {
+            final List<Area> children = new ArrayList<Area>(root.getChildren());
+            if (ForkJoinTask.inForkJoinPool())
+                processInPool(children);
+            else
+            {
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+                    protected void compute()
+                    {
+                        processInPool(children);
+                    }
+                });
+            }
+        }
+        else
+        {
+            for (int i = 0; i < root.getChildCount(); i++)
+                processSubtree(root.getChildAt(i));
+        }
+    }
+
+    private void processInPool(List<Area> children)
+    {
+        List<SubtreeTask> tasks = new ArrayList<SubtreeTask>();
+        for (Area child : children)
+        {
+            if (hasMinSize(child, parallelThreshold))
+                tasks.add(new SubtreeTask(child));
+        }
+        if (tasks.isEmpty())
+        {
+            for (Area child : children)
+                processSubtree(child);
+        }
+        else
+        {
+            //fork the large subtrees and process the small ones meanwhile
+            for (SubtreeTask task : tasks)
+                task.fork();
+            int ti = 0;
+            for (Area child : children)
+            {
+                if (ti < tasks.size() && tasks.get(ti).root == child)
+                    ti++;
+                else
+                    processSubtree(child);
+            }
+            for (SubtreeTask task : tasks)
+                task.join();
+        }
+    }
+
+    /**
+     * Checks whether the subtree contains at least the given number of areas. Only the first
+     * {@code min} areas are counted.
+     */
+    private static boolean hasMinSize(Area root, int min)
+    {
+        return countAreas(root, min) >= min;
+    }
+
+    private static int countAreas(Area root, int limit)
+    {
+        int cnt = 1;
+        for (int i = 0; i < root.getChildCount() && cnt < limit; i++)
+            cnt += countAreas(root.getChildAt(i), limit - cnt);
+        return cnt;
+    }
+
+    /**
+     * A task that processes a single child subtree.
+     */
+    private class SubtreeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final Area root;
+
+        public SubtreeTask(Area root)
+        {
+            this.root = root;
+        }
+
+        @Override
+        protected void compute()
+        {
+            processSubtree(root);
+        }
+    }
+
+}
@@ -10,22 +10,28 @@ import java.util.List;
 import java.util.Vector;
 
 import org.fit.layout.api.Parameter;
-import org.fit.layout.impl.BaseOperator;
 import org.fit.layout.impl.ParameterInt;
 import org.fit.layout.model.Area;
 import org.fit.layout.model.AreaTree;
 import org.fit.segm.grouping.AreaImpl;
 import org.fit.segm.grouping.Config;
+import org.fit.segm.grouping.Config.SeparatorAlgorithm;
 
 /**
  * Detects the larger visual areas and creates the artificial area nodes.
  * 
  * @author burgetr
  */
-public class SuperAreaOperator extends BaseOperator
+public class SuperAreaOperator extends FusableOperator
 {
     /** Recursion depth limit while detecting the sub-areas */
     protected int depthLimit;
+    
+    /** The separator detection algorithm */
+    protected SeparatorAlgorithm separatorAlgorithm;
+    
+    /** Detect the separators of the larger areas in parallel? */
+    protected boolean parallelSeparators;
 
     /**
      * Creates the deparator with default parameter values.
@@ -33,6 +39,7 @@ public class SuperAreaOperator extends BaseOperator
     public SuperAreaOperator()
     {
         depthLimit = 2;
+        separatorAlgorithm = SeparatorAlgorithm.HVS;
     }
     
     /**
@@ -42,6 +49,7 @@ public class SuperAreaOperator extends BaseOperator
     public SuperAreaOperator(int depthLimit)
     {
         this.depthLimit = depthLimit;
+        separatorAlgorithm = SeparatorAlgorithm.HVS;
     }
     
     @Override
@@ -71,8 +79,9 @@ public class SuperAreaOperator extends BaseOperator
     @Override
     public List<Parameter> defineParams()
     {
-        List<Parameter> ret = new ArrayList<>(1);
+        List<Parameter> ret = new ArrayList<>(3);
         ret.add(new ParameterInt("depthLimit"));
+        ret.addAll(super.defineParams());
         return ret;
     }
 
@@ -86,6 +95,38 @@ public class SuperAreaOperator extends BaseOperator
         this.depthLimit = depthLimit;
     }
 
+    public SeparatorAlgorithm getSeparatorAlgorithm()
+    {
+        return separatorAlgorithm;
+    }
+
+    /**
+     * Selects the separator detection algorithm used by this operator.
+     * The default algorithm is {@link SeparatorAlgorithm#HVS}.
+     * @param separatorAlgorithm the algorithm to be used
+     */
+    public void setSeparatorAlgorithm(SeparatorAlgorithm separatorAlgorithm)
+    {
+        if (separatorAlgorithm == null)
+            throw new IllegalArgumentException("separatorAlgorithm must not be null");
+        this.separatorAlgorithm = separatorAlgorithm;
+    }
+
+    public boolean isParallelSeparators()
+    {
+        return parallelSeparators;
+    }
+
+    /**
+     * Enables or disables the parallel separator detection in the larger areas. This is independent
+     * on the parallel processing of the child subtrees.
+     * @param parallelSeparators {@code true} for enabling the parallel detection
+     */
+    public void setParallelSeparators(boolean parallelSeparators)
+    {
+        this.parallelSeparators = parallelSeparators;
+    }
+
     //==============================================================================
     
     @Override
@@ -115,11 +156,28 @@ public class SuperAreaOperator extends BaseOperator
      */
     private void recursiveFindSuperAreas(AreaImpl root)
     {
-        for (int i = 0; i < root.getChildCount(); i++)
-            recursiveFindSuperAreas((AreaImpl) root.getChildAt(i));
+        processChildSubtrees(root);
         findSuperAreas(root, depthLimit);
     }
     
+    @Override
+    protected void processSubtree(Area root)
+    {
+        recursiveFindSuperAreas((AreaImpl) root);
+    }
+    
+    @Override
+    public Traversal getTraversal()
+    {
+        return Traversal.POST_ORDER;
+    }
+    
+    @Override
+    protected void processNode(Area node)
+    {
+        findSuperAreas((AreaImpl) node, depthLimit);
+    }
+    
     /**
      * Creates syntetic super areas by grouping the subareas of the given area.
      * @param the root area to be processed
@@ -131,7 +189,7 @@ public class SuperAreaOperator extends BaseOperator
         {
             boolean changed = true;
             int pass = 0;
-            root.createSeparators();
+            root.createSeparators(separatorAlgorithm, parallelSeparators);
             while (changed && pass < passlimit)
             {
                 changed = false;
@@ -159,10 +217,8 @@ public class SuperAreaOperator extends BaseOperator
                         //add a new area
                         if (selected.size() > 1)
                         {
-                            root.insertChild(grp, index);
                             //add(grp); //add the new group to the end of children (so that it is processed again later)
-                            for (AreaImpl a : selected)
-                                grp.appendChild(a);
+                            root.insertSuperArea(grp, selected, index);
                             chld.removeAll(selected);
                             grp.updateTopologies();;
                             findSuperAreas(grp, passlimit - 1); //in the next level, we use smaller pass limit to stop the recursion
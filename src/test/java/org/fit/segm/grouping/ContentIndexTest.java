@@ -0,0 +1,144 @@
+/**
+ * ContentIndexTest.java
+ *
+ * Created on 17. 10. 2026, 22:05:42 by agent
+ */
+package org.fit.segm.grouping;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.Box;
+import org.fit.layout.model.Page;
+import org.fit.segm.grouping.gen.PageGenerator;
+import org.fit.segm.grouping.op.Separator;
+import org.junit.Test;
+
+/**
+ * Compares the indexed {@link AreaImpl#findContentAbove(Separator)} with the original recursive search
+ * on generated pages that contain images (the leaf areas with no text).
+ *
+ * @author agent
+ */
+public class ContentIndexTest
+{
+    private static final int PAGES = 10;
+    private static final int QUERIES = 50;
+
+    @Test
+    public void basicAreasMatchRecursiveSearch()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            SegmentationAreaTree atree = new SegmentationAreaTree(createPage(seed), seed % 2 == 1);
+            atree.findBasicAreas();
+            checkTree((AreaImpl) atree.getRoot(), seed);
+        }
+    }
+
+    @Test
+    public void segmentedAreasMatchRecursiveSearch()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            SegmentationAreaTree atree = new SegmentationEngine().segment(createPage(seed));
+            checkTree((AreaImpl) atree.getRoot(), seed);
+        }
+    }
+
+    //==============================================================================
+
+    private static void checkTree(AreaImpl root, int seed)
+    {
+        Random rand = new Random(seed);
+        List<AreaImpl> areas = new ArrayList<AreaImpl>();
+        collectAreas(root, areas);
+        int found = 0;
+        for (AreaImpl area : areas)
+        {
+            for (int i = 0; i < QUERIES; i++)
+            {
+                final int x1 = area.getX1() - 20 + rand.nextInt(area.getWidth() + 40);
+                final int x2 = x1 + rand.nextInt(area.getWidth() + 1);
+                final int y = area.getY1() - 20 + rand.nextInt(area.getHeight() + 40);
+                Separator sep = new Separator(Separator.HORIZONTAL, x1, y, x2, y + 1);
+                AreaImpl expected = recursiveFindAreaAbove(area, x1, x2, 0, y);
+                assertSame("page " + seed + " area " + area + " sep " + sep, expected, area.findContentAbove(sep));
+                if (expected != null)
+                    found++;
+            }
+        }
+        assertTrue("page " + seed, found > 0);
+    }
+
+    private static void collectAreas(AreaImpl root, List<AreaImpl> dest)
+    {
+        if (root.getChildCount() > 0)
+        {
+            dest.add(root);
+            for (int i = 0; i < root.getChildCount(); i++)
+                collectAreas((AreaImpl) root.getChildAt(i), dest);
+        }
+    }
+
+    private static Page createPage(int seed)
+    {
+        PageGenerator gen = new PageGenerator(300 + seed * 50, 1 + seed % 3);
+        gen.setSeed(seed);
+        gen.setImageRatio(0.2f);
+        if (seed % 3 == 0)
+            gen.setBorderRatio(0.3f);
+        if (seed % 4 == 0)
+            gen.setBackgroundRatio(0.3f);
+        return gen.generate();
+    }
+
+    /**
+     * The original recursive search of the content above a separator.
+     */
+    private static AreaImpl recursiveFindAreaAbove(AreaImpl root, int x1, int x2, int y1, int y2)
+    {
+        AreaImpl ret = null;
+        int maxx = x2;
+        int miny = y1;
+        for (Box box : root.getBoxes())
+        {
+            int bx = box.getBounds().getX1();
+            int by = box.getBounds().getY2();
+            if ((bx >= x1 && bx <= x2 && by < y2) &&
+                    (by > miny || (by == miny && bx < maxx)))
+            {
+                ret = root;
+                if (bx < maxx) maxx = bx;
+                if (by > miny) miny = by;
+            }
+        }
+        for (int i = 0; i < root.getChildCount(); i++)
+        {
+            Area child = root.getChildAt(i);
+            if (child instanceof AreaImpl)
+            {
+                AreaImpl area = recursiveFindAreaAbove((AreaImpl) child, x1, x2, miny, y2);
+                if (area != null)
+                {
+                    int bx = area.getX1();
+                    int by = area.getY2();
+                    if (area.getText().length() > 0 &&
+                            (by > miny || (by == miny && bx < maxx)))
+                    {
+                        ret = area;
+                        if (bx < maxx) maxx = bx;
+                        if (by > miny) miny = by;
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+}
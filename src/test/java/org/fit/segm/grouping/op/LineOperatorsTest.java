@@ -0,0 +1,213 @@
+/**
+ * LineOperatorsTest.java
+ *
+ * Created on 17. 10. 2026, 19:48:05 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import static org.junit.Assert.assertEquals;
+
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTopology;
+import org.fit.layout.model.AreaTree;
+import org.fit.layout.model.Page;
+import org.fit.layout.model.Rectangular;
+import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.SegmentationAreaTree;
+import org.fit.segm.grouping.gen.PageGenerator;
+import org.junit.Test;
+
+/**
+ * Compares the worklist-based line operators with the original implementation that repeats
+ * the whole scan of the child areas after each join.
+ * 
+ * @author agent
+ */
+public class LineOperatorsTest
+{
+    private static final int PAGES = 20;
+
+    @Test
+    public void findLinesMatchesFullRescan()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            Page page = createPage(seed);
+            boolean consistent = (seed % 2 == 0);
+            AreaTree expected = createBasicTree(page);
+            new RescanFindLineOperator(consistent).apply(expected);
+            AreaTree actual = createBasicTree(page);
+            new FindLineOperator(consistent, 1.5f).apply(actual);
+            assertEquals("page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+        }
+    }
+
+    @Test
+    public void multiLinesMatchesFullRescan()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            Page page = createPage(seed);
+            boolean consistent = (seed % 2 == 0);
+            AreaTree expected = createBasicTree(page);
+            new FindLineOperator().apply(expected);
+            new RescanMultiLineOperator(consistent).apply(expected);
+            AreaTree actual = createBasicTree(page);
+            new FindLineOperator().apply(actual);
+            new MultiLineOperator(consistent, 1.5f).apply(actual);
+            assertEquals("page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+        }
+    }
+
+    //==============================================================================
+
+    private static Page createPage(int seed)
+    {
+        PageGenerator gen = new PageGenerator(300 + seed * 50, 1 + seed % 3);
+        gen.setSeed(seed);
+        if (seed % 3 == 0)
+            gen.setBorderRatio(0.3f);
+        if (seed % 4 == 0)
+            gen.setBackgroundRatio(0.3f);
+        return gen.generate();
+    }
+
+    private static AreaTree createBasicTree(Page page)
+    {
+        SegmentationAreaTree atree = new SegmentationAreaTree(page, false);
+        atree.findBasicAreas();
+        return atree;
+    }
+
+    private static String dump(Area root)
+    {
+        StringBuilder ret = new StringBuilder();
+        dump(root, 0, ret);
+        return ret.toString();
+    }
+
+    private static void dump(Area area, int level, StringBuilder dest)
+    {
+        for (int i = 0; i < level; i++)
+            dest.append(' ');
+        dest.append(area.getBounds()).append(' ').append(((AreaImpl) area).getGridPosition())
+            .append(' ').append(area.getBoxes().size()).append('\n');
+        for (int i = 0; i < area.getChildCount(); i++)
+            dump(area.getChildAt(i), level + 1, dest);
+    }
+
+    //==============================================================================
+
+    /**
+     * The original line detection that repeats the scan from the first child area after each join.
+     */
+    private static class RescanFindLineOperator extends FindLineOperator
+    {
+        public RescanFindLineOperator(boolean useConsistentStyle)
+        {
+            super(useConsistentStyle, 1.5f);
+        }
+
+        @Override
+        protected void joinAreas(AreaImpl a)
+        {
+            AreaTopology t = a.getTopology();
+            boolean change = true;
+            while (change)
+            {
+                change = false;
+                for (int i = 0; i < a.getChildCount(); i++)
+                {
+                    AreaImpl node = (AreaImpl) a.getChildAt(i);
+                    Rectangular pos = t.getPosition(node);
+                    int ny1 = pos.getY1();
+                    int nx2 = pos.getX2();
+                    int ny2 = pos.getY2();
+                    AreaImpl neigh = null;
+                    int dist = 1;
+                    while (neigh == null && nx2 + dist < t.getTopologyWidth())
+                    {
+                        for (int y = ny1; neigh == null && y <= ny2; y++)
+                        {
+                            neigh = (AreaImpl) t.findAreaAt(nx2 + dist, y);
+                            if (neigh != null)
+                            {
+                                if (!useConsistentStyle || node.hasSameStyle(neigh))
+                                {
+                                    Rectangular newpos = horizontalJoin(a, node, neigh);
+                                    if (newpos != null)
+                                    {
+                                        a.joinChildren(node, neigh, newpos, true);
+                                        node.updateTopologies();
+                                        change = true;
+                                    }
+                                }
+                                else if (horizontalJoin(a, node, neigh) != null)
+                                {
+                                    node.setNextOnLine(neigh);
+                                    neigh.setPreviousOnLine(node);
+                                }
+                            }
+                        }
+                        dist++;
+                    }
+                    if (change) break;
+                }
+            }
+        }
+    }
+
+    /**
+     * The original multi-line detection that repeats the scan from the first child area after each join.
+     */
+    private static class RescanMultiLineOperator extends MultiLineOperator
+    {
+        public RescanMultiLineOperator(boolean useConsistentStyle)
+        {
+            super(useConsistentStyle, 1.5f);
+        }
+
+        @Override
+        protected void joinAreas(AreaImpl a)
+        {
+            AreaTopology t = a.getTopology();
+            boolean change = true;
+            while (change)
+            {
+                change = false;
+                for (int i = 0; i < a.getChildCount(); i++)
+                {
+                    AreaImpl node = (AreaImpl) a.getChildAt(i);
+                    Rectangular pos = t.getPosition(node);
+                    int nx1 = pos.getX1();
+                    int nx2 = pos.getX2();
+                    int ny2 = pos.getY2();
+                    AreaImpl neigh = null;
+                    int dist = 1;
+                    while (neigh == null && ny2 + dist < t.getTopologyHeight())
+                    {
+                        for (int x = nx1; neigh == null && x <= nx2; x++)
+                        {
+                            neigh = (AreaImpl) t.findAreaAt(x, ny2 + dist);
+                            if (neigh != null
+                                    && (!useConsistentStyle || node.hasSameStyle(neigh))
+                                    && neigh.getGridPosition().getX1() == nx1)
+                            {
+                                Rectangular newpos = verticalJoin(a, node, neigh);
+                                if (newpos != null)
+                                {
+                                    a.joinChildren(node, neigh, newpos, true);
+                                    node.updateTopologies();
+                                    change = true;
+                                }
+                            }
+                        }
+                        dist++;
+                    }
+                    if (change) break;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * OperatorPipelineTest.java
+ *
+ * Created on 17. 10. 2026, 21:24:17 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.fit.layout.api.AreaTreeOperator;
+import org.fit.layout.model.Area;
+import org.fit.layout.model.AreaTree;
+import org.fit.layout.model.Page;
+import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.SegmentationAreaTree;
+import org.fit.segm.grouping.SegmentationConfig;
+import org.fit.segm.grouping.SegmentationEngine;
+import org.fit.segm.grouping.gen.PageGenerator;
+import org.junit.Test;
+
+/**
+ * Compares the operators fused by {@link OperatorPipeline} with the operators applied one by one.
+ *
+ * @author agent
+ */
+public class OperatorPipelineTest
+{
+    private static final int PAGES = 20;
+
+    @Test
+    public void restructuringOperatorsStartNewStages()
+    {
+        List<AreaTreeOperator> ops = new SegmentationEngine().createOperators();
+        List<AreaTreeOperator> stages = new OperatorPipeline(ops).getStages();
+        assertEquals(3, stages.size());
+        assertEquals(ops.get(0), stages.get(0));
+    }
+
+    @Test
+    public void fusedMatchesSequential()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            Page page = createPage(seed);
+            SegmentationConfig config = new SegmentationConfig.Builder()
+                    .useConsistentStyle(seed % 2 == 0)
+                    .columnFirst(seed % 5 == 0)
+                    .build();
+            SegmentationEngine engine = new SegmentationEngine(config);
+            AreaTree expected = createBasicTree(page, seed % 2 == 1);
+            for (AreaTreeOperator op : engine.createOperators())
+                op.apply(expected);
+            AreaTree actual = createBasicTree(page, seed % 2 == 1);
+            new OperatorPipeline(engine.createOperators()).apply(actual);
+            assertEquals("page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+        }
+    }
+
+    @Test
+    public void fusedLinesMatchSequential()
+    {
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            Page page = createPage(seed);
+            AreaTree expected = createBasicTree(page, seed % 2 == 1);
+            new FindLineOperator().apply(expected);
+            new MultiLineOperator().apply(expected);
+            new SortByPositionOperator(false).apply(expected);
+            AreaTree actual = createBasicTree(page, seed % 2 == 1);
+            new OperatorPipeline(Arrays.asList(new FindLineOperator(), new MultiLineOperator(),
+                    new SortByPositionOperator(false))).apply(actual);
+            assertEquals("page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+
+            //the original sorting by lines: the whole tree is sorted by position first
+            expected = createBasicTree(page, seed % 2 == 1);
+            new FindLineOperator().apply(expected);
+            new MultiLineOperator().apply(expected);
+            new SortByPositionOperator(false).apply(expected);
+            new SortByLinesOperator().recursiveSortLines((AreaImpl) expected.getRoot());
+            actual = createBasicTree(page, seed % 2 == 1);
+            new OperatorPipeline(Arrays.asList(new FindLineOperator(), new MultiLineOperator(),
+                    new SortByLinesOperator())).apply(actual);
+            assertEquals("lines page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+            actual = createBasicTree(page, seed % 2 == 1);
+            new FindLineOperator().apply(actual);
+            new MultiLineOperator().apply(actual);
+            SortByLinesOperator sort = new SortByLinesOperator();
+            sort.setParallel(true);
+            sort.setParallelThreshold(5);
+            sort.apply(actual);
+            assertEquals("parallel lines page " + seed, dump(expected.getRoot()), dump(actual.getRoot()));
+        }
+    }
+
+    //==============================================================================
+
+    private static Page createPage(int seed)
+    {
+        PageGenerator gen = new PageGenerator(300 + seed * 50, 1 + seed % 3);
+        gen.setSeed(seed);
+        if (seed % 3 == 0)
+            gen.setBorderRatio(0.3f);
+        if (seed % 4 == 0)
+            gen.setBackgroundRatio(0.3f);
+        return gen.generate();
+    }
+
+    /**
+     * Creates the basic areas. When the auxiliary areas are preserved, the paragraphs are represented
+     * by the areas that contain the lines, so the multi-line detection joins non-leaf areas.
+     */
+    private static AreaTree createBasicTree(Page page, boolean preserveAuxAreas)
+    {
+        SegmentationAreaTree atree = new SegmentationAreaTree(page, preserveAuxAreas);
+        atree.findBasicAreas();
+        return atree;
+    }
+
+    private static String dump(Area root)
+    {
+        StringBuilder ret = new StringBuilder();
+        dump(root, 0, ret);
+        return ret.toString();
+    }
+
+    private static void dump(Area area, int level, StringBuilder dest)
+    {
+        for (int i = 0; i < level; i++)
+            dest.append(' ');
+        dest.append(area.getBounds()).append(' ').append(((AreaImpl) area).getGridPosition())
+            .append(' ').append(area.getBoxes().size()).append('\n');
+        for (int i = 0; i < area.getChildCount(); i++)
+            dump(area.getChildAt(i), level + 1, dest);
+    }
+
+}
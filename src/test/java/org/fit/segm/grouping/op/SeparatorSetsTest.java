@@ -0,0 +1,106 @@
+/**
+ * SeparatorSetsTest.java
+ *
+ * Created on 17. 10. 2026, 22:41:09 by agent
+ */
+package org.fit.segm.grouping.op;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.fit.layout.model.Page;
+import org.fit.segm.grouping.AreaImpl;
+import org.fit.segm.grouping.Config;
+import org.fit.segm.grouping.Config.SeparatorAlgorithm;
+import org.fit.segm.grouping.SegmentationAreaTree;
+import org.fit.segm.grouping.SegmentationEngine;
+import org.fit.segm.grouping.gen.PageGenerator;
+import org.junit.Test;
+
+/**
+ * Compares the separators found by {@link SeparatorSetSweep} with the separators found by
+ * the original {@link SeparatorSetHVS}.
+ *
+ * @author agent
+ */
+public class SeparatorSetsTest
+{
+    private static final int PAGES = 20;
+
+    @Test
+    public void basicAreasMatchHVS()
+    {
+        int cnt = 0;
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            SegmentationAreaTree atree = new SegmentationAreaTree(createPage(seed), seed % 2 == 0);
+            atree.findBasicAreas();
+            cnt += compareTree((AreaImpl) atree.getRoot(), seed);
+        }
+        assertTrue(cnt > 0);
+    }
+
+    @Test
+    public void segmentedAreasMatchHVS()
+    {
+        int cnt = 0;
+        for (int seed = 1; seed <= PAGES; seed++)
+        {
+            SegmentationAreaTree atree = new SegmentationEngine().segment(createPage(seed));
+            cnt += compareTree((AreaImpl) atree.getRoot(), seed);
+        }
+        assertTrue(cnt > 0);
+    }
+
+    //==============================================================================
+
+    /**
+     * Compares the separators of all the areas with at least two child areas.
+     * @return the number of compared areas
+     */
+    private static int compareTree(AreaImpl root, int seed)
+    {
+        int ret = 0;
+        if (root.getChildCount() > 1)
+        {
+            SeparatorSet expected = Config.createSeparators(root, SeparatorAlgorithm.HVS);
+            SeparatorSet actual = Config.createSeparators(root, SeparatorAlgorithm.SWEEP);
+            final String msg = "page " + seed + " area " + root;
+            compare(msg + " horizontal", expected.getHorizontal(), actual.getHorizontal());
+            compare(msg + " vertical", expected.getVertical(), actual.getVertical());
+            compare(msg + " boxsep", expected.getBoxsep(), actual.getBoxsep());
+            ret++;
+        }
+        for (int i = 0; i < root.getChildCount(); i++)
+            ret += compareTree((AreaImpl) root.getChildAt(i), seed);
+        return ret;
+    }
+
+    private static void compare(String msg, List<Separator> expected, List<Separator> actual)
+    {
+        assertEquals(msg, expected.toString(), actual.toString());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(msg, expected.get(i).getType(), actual.get(i).getType());
+            assertSame(msg, expected.get(i).getArea1(), actual.get(i).getArea1());
+            assertSame(msg, expected.get(i).getArea2(), actual.get(i).getArea2());
+        }
+    }
+
+    private static Page createPage(int seed)
+    {
+        PageGenerator gen = new PageGenerator(200 + seed * 40, 1 + seed % 4);
+        gen.setSeed(seed);
+        if (seed % 3 == 0)
+            gen.setBorderRatio(0.5f);
+        if (seed % 5 == 0)
+            gen.setBackgroundRatio(0.5f);
+        if (seed % 4 == 0)
+            gen.setImageRatio(0.2f);
+        return gen.generate();
+    }
+
+}